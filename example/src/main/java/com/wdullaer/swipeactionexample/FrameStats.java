@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionexample;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Debug;
+import android.view.Choreographer;
+import android.widget.TextView;
+
+import java.util.Locale;
+
+/**
+ * Shows the frame times, the garbage collections and the inflated rows of the last half second
+ * in a TextView. It keeps requesting frames while it runs, so only use it for measuring.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+class FrameStats implements Choreographer.FrameCallback {
+    private static final long REPORT_INTERVAL = 500000000; // ns
+    // A frame that takes longer than one and a half refresh at 60Hz missed the vsync
+    private static final long JANK_THRESHOLD = 25000000; // ns
+
+    private final TextView mView;
+    private final StressAdapter mAdapter;
+    private boolean mRunning = false;
+
+    private long mLastFrameNanos;
+    private long mWindowStartNanos;
+    private int mFrames;
+    private int mJankyFrames;
+    private long mTotalNanos;
+    private long mMaxNanos;
+    private int mGcCountAtStart;
+    private int mInflationsAtStart;
+
+    FrameStats(TextView view, StressAdapter adapter) {
+        mView = view;
+        mAdapter = adapter;
+    }
+
+    void start() {
+        if (mRunning) return;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            mView.setText("Frame stats need Android 4.1");
+            return;
+        }
+        mRunning = true;
+        mLastFrameNanos = 0;
+        mWindowStartNanos = 0;
+        mGcCountAtStart = getGcCount();
+        mInflationsAtStart = mAdapter.getInflationCount();
+        resetWindow();
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    void stop() {
+        if (!mRunning) return;
+        mRunning = false;
+        Choreographer.getInstance().removeFrameCallback(this);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        if (!mRunning) return;
+        if (mLastFrameNanos != 0) {
+            long interval = frameTimeNanos - mLastFrameNanos;
+            mFrames++;
+            mTotalNanos += interval;
+            mMaxNanos = Math.max(mMaxNanos, interval);
+            if (interval > JANK_THRESHOLD) mJankyFrames++;
+        } else {
+            mWindowStartNanos = frameTimeNanos;
+        }
+        mLastFrameNanos = frameTimeNanos;
+
+        if (frameTimeNanos - mWindowStartNanos >= REPORT_INTERVAL) {
+            report();
+            resetWindow();
+            mWindowStartNanos = frameTimeNanos;
+        }
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    private void report() {
+        int gcCount = getGcCount();
+        mView.setText(String.format(Locale.US,
+                "frame avg %5.1fms max %5.1fms\njanky %d/%d\ngc %s\ninflated rows %d",
+                mFrames == 0 ? 0 : mTotalNanos / 1e6 / mFrames,
+                mMaxNanos / 1e6,
+                mJankyFrames, mFrames,
+                gcCount < 0 ? "n/a" : String.valueOf(gcCount - mGcCountAtStart),
+                mAdapter.getInflationCount() - mInflationsAtStart));
+    }
+
+    private void resetWindow() {
+        mFrames = 0;
+        mJankyFrames = 0;
+        mTotalNanos = 0;
+        mMaxNanos = 0;
+    }
+
+    /**
+     * @return the amount of garbage collections so far, or -1 if the platform doesn't tell
+     */
+    private static int getGcCount() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return -1;
+        String count = Debug.getRuntimeStat("art.gc.gc-count");
+        try {
+            return count == null ? -1 : Integer.parseInt(count);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -18,6 +18,7 @@ package com.wdullaer.swipeactionexample;
 
 import android.app.AlertDialog;
 import android.app.ListActivity;
+import android.content.Intent;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -76,6 +77,10 @@ public class MainActivity extends ListActivity implements
         // automatically handle clicks on the Home/Up button, so long
         // as you specify a parent activity in AndroidManifest.xml.
         int id = item.getItemId();
+        if (id == R.id.action_stress) {
+            startActivity(new Intent(this, StressActivity.class));
+            return true;
+        }
         if (id == R.id.action_settings) {
             return true;
         }
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionexample;
+
+import android.app.ListActivity;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import com.wdullaer.swipeactionadapter.SwipeActionAdapter;
+import com.wdullaer.swipeactionadapter.SwipeDirection;
+import com.wdullaer.swipeactionadapter.SwipeDirectionMask;
+
+import java.util.Random;
+
+/**
+ * Shows 100.000 rows of different types with all four backgrounds, and measures how smoothly
+ * they swipe and scroll. The menu starts a script that keeps swiping and scrolling.
+ */
+public class StressActivity extends ListActivity implements
+        SwipeActionAdapter.SwipeActionListener
+{
+    static final int ROW_COUNT = 100000;
+    static final int MENU_SCRIPT = 1;
+    private static final long SEED = 42;
+    private static final int SWIPE_MOVES = 12;
+    private static final long MOVE_INTERVAL = 16;
+    private static final long SWIPE_PAUSE = 600;
+    private static final long SCROLL_DURATION = 300;
+    private static final long SCROLL_PAUSE = 400;
+
+    protected SwipeActionAdapter mAdapter;
+    private StressAdapter mStressAdapter;
+    private SwipeDirectionMask mDirectionMask;
+    private FrameStats mFrameStats;
+
+    private final Random mRandom = new Random(SEED);
+    private final int[] mListViewCoords = new int[2];
+    private boolean mScriptRunning = false;
+    // The swipe the script is performing
+    private long mDownTime;
+    private float mStartX;
+    private float mStartY;
+    private float mDistance;
+    private int mMove;
+
+    private final Runnable mScriptStep = new Runnable() {
+        @Override
+        public void run() {
+            if (!mScriptRunning) return;
+            if (mRandom.nextBoolean()) {
+                startSwipe();
+            } else {
+                ListView listView = getListView();
+                int distance = (int) ((mRandom.nextFloat() * 2 - 0.5f) * listView.getHeight());
+                listView.smoothScrollBy(distance, (int) SCROLL_DURATION);
+                listView.postDelayed(this, SCROLL_DURATION + SCROLL_PAUSE);
+            }
+        }
+    };
+
+    private final Runnable mSwipeMove = new Runnable() {
+        @Override
+        public void run() {
+            if (!mScriptRunning) {
+                dispatch(MotionEvent.ACTION_CANCEL, mStartX, mStartY);
+                return;
+            }
+            mMove++;
+            float x = mStartX + mDistance * mMove / SWIPE_MOVES;
+            if (mMove < SWIPE_MOVES) {
+                dispatch(MotionEvent.ACTION_MOVE, x, mStartY);
+                getListView().postDelayed(this, MOVE_INTERVAL);
+            } else {
+                dispatch(MotionEvent.ACTION_UP, x, mStartY);
+                getListView().postDelayed(mScriptStep, SWIPE_PAUSE);
+            }
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress);
+        setTitle(R.string.stress_title);
+
+        mStressAdapter = new StressAdapter(this, ROW_COUNT);
+        // Two line rows can only be swiped to the left
+        mDirectionMask = new SwipeDirectionMask();
+        int leftOnly = SwipeDirectionMask.of(SwipeDirection.DIRECTION_NORMAL_LEFT, SwipeDirection.DIRECTION_FAR_LEFT);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            if (StressAdapter.typeOf(i) == StressAdapter.TYPE_TWO_LINE) mDirectionMask.set(i, leftOnly);
+        }
+
+        mAdapter = new SwipeActionAdapter(mStressAdapter);
+        mAdapter.setSwipeActionListener(this)
+                .setDirectionMask(mDirectionMask)
+                .setDimBackgrounds(true)
+                .setFadeOut(true)
+                .setListView(getListView());
+        setListAdapter(mAdapter);
+
+        mAdapter.addBackground(SwipeDirection.DIRECTION_FAR_LEFT,R.layout.row_bg_left_far)
+                .addBackground(SwipeDirection.DIRECTION_NORMAL_LEFT, R.layout.row_bg_left)
+                .addBackground(SwipeDirection.DIRECTION_FAR_RIGHT, R.layout.row_bg_right_far)
+                .addBackground(SwipeDirection.DIRECTION_NORMAL_RIGHT,R.layout.row_bg_right);
+
+        mFrameStats = new FrameStats((TextView) findViewById(R.id.stats), mStressAdapter);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mFrameStats.start();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mScriptRunning = false;
+        mFrameStats.stop();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        menu.add(Menu.NONE, MENU_SCRIPT, Menu.NONE, R.string.stress_start_script);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == MENU_SCRIPT) {
+            mScriptRunning = !mScriptRunning;
+            item.setTitle(mScriptRunning ? R.string.stress_stop_script : R.string.stress_start_script);
+            if (mScriptRunning) getListView().post(mScriptStep);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    private void startSwipe() {
+        ListView listView = getListView();
+        if (listView.getChildCount() == 0) {
+            listView.postDelayed(mScriptStep, SWIPE_PAUSE);
+            return;
+        }
+        View child = listView.getChildAt(mRandom.nextInt(listView.getChildCount()));
+        listView.getLocationOnScreen(mListViewCoords);
+        mStartX = mListViewCoords[0] + listView.getWidth() / 2f;
+        mStartY = mListViewCoords[1] + child.getTop() + child.getHeight() / 2f;
+        mDistance = (mRandom.nextFloat() * 2 - 1) * listView.getWidth() * 0.8f;
+        mMove = 0;
+        mDownTime = SystemClock.uptimeMillis();
+        dispatch(MotionEvent.ACTION_DOWN, mStartX, mStartY);
+        listView.postDelayed(mSwipeMove, MOVE_INTERVAL);
+    }
+
+    private void dispatch(int action, float rawX, float rawY) {
+        MotionEvent event = MotionEvent.obtain(mDownTime, SystemClock.uptimeMillis(), action, rawX, rawY, 0);
+        // The swipe listener reads the raw coordinates, the ListView the local ones
+        event.offsetLocation(-mListViewCoords[0], -mListViewCoords[1]);
+        getListView().dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    @Override
+    public boolean hasActions(int position, SwipeDirection direction){
+        // Not called: the direction mask answers instead
+        return true;
+    }
+
+    @Override
+    public boolean shouldDismiss(int position, SwipeDirection direction){
+        return direction.isLeft();
+    }
+
+    @Override
+    public void onSwipe(int[] positionList, SwipeDirection[] directionList){
+        // Positions are sorted in descending order, so removing one doesn't move the next
+        boolean removed = false;
+        for (int i = 0; i < positionList.length; i++) {
+            if (positionList[i] == ListView.INVALID_POSITION || !directionList[i].isLeft()) continue;
+            mStressAdapter.remove(positionList[i]);
+            mDirectionMask.remove(positionList[i], 1);
+            removed = true;
+        }
+        if (removed) mAdapter.notifyDataSetChanged();
+    }
+}
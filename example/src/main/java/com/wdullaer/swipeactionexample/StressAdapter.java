@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionexample;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+/**
+ * A large list of rows of three different types, for the stress mode.
+ * Items are plain ints, so the data itself costs next to nothing.
+ */
+class StressAdapter extends BaseAdapter {
+    static final int TYPE_TEXT = 0;
+    static final int TYPE_IMAGE = 1;
+    static final int TYPE_TWO_LINE = 2;
+    private static final int[] LAYOUTS = {
+            R.layout.row_stress_text,
+            R.layout.row_stress_image,
+            R.layout.row_stress_two_line
+    };
+
+    private final LayoutInflater mInflater;
+    private int[] mIds;
+    private int mCount;
+    private int mInflations = 0;
+
+    private static class ViewHolder {
+        TextView title;
+        TextView subtitle;
+        View image;
+    }
+
+    StressAdapter(Context context, int count) {
+        mInflater = LayoutInflater.from(context);
+        mIds = new int[count];
+        for (int i = 0; i < count; i++) mIds[i] = i;
+        mCount = count;
+    }
+
+    /**
+     * @return the amount of rows getView had to inflate
+     */
+    int getInflationCount() {
+        return mInflations;
+    }
+
+    /**
+     * Remove an item, without notifying
+     *
+     * @param position the position of the item
+     */
+    void remove(int position) {
+        System.arraycopy(mIds, position + 1, mIds, position, mCount - position - 1);
+        mCount--;
+    }
+
+    /**
+     * @param id the id of an item
+     * @return the view type of the item
+     */
+    static int typeOf(int id) {
+        return id % LAYOUTS.length;
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return "Row " + (mIds[position] + 1);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return mIds[position];
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return LAYOUTS.length;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return typeOf(mIds[position]);
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        int id = mIds[position];
+        int type = typeOf(id);
+        ViewHolder holder;
+        if (convertView == null) {
+            convertView = mInflater.inflate(LAYOUTS[type], parent, false);
+            holder = new ViewHolder();
+            holder.title = (TextView) convertView.findViewById(R.id.title);
+            holder.subtitle = (TextView) convertView.findViewById(R.id.subtitle);
+            holder.image = convertView.findViewById(R.id.image);
+            convertView.setTag(holder);
+            mInflations++;
+        } else {
+            holder = (ViewHolder) convertView.getTag();
+        }
+
+        holder.title.setText("Row " + (id + 1));
+        if (type == TYPE_IMAGE) {
+            // Stands in for a thumbnail: a colour derived from the id
+            holder.image.setBackgroundColor(0xFF000000 | (id * 0x9E3779B1 >>> 8));
+        } else if (type == TYPE_TWO_LINE) {
+            holder.subtitle.setText("Only swipes to the left");
+        }
+        return convertView;
+    }
+}
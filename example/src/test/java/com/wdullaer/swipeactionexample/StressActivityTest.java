@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionexample;
+
+import com.wdullaer.swipeactionadapter.SwipeDebugReport;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.fakes.RoboMenuItem;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs the script of the stress screen on the virtual clock of the main looper: it swipes and
+ * scrolls the real rows, and must leave nothing behind when it stops
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class StressActivityTest {
+    private static final long SCRIPT_TIME = 60;
+    private static final long SETTLE_TIME = 5;
+    private static final int FRAME_TIME = 16;
+
+    @Before
+    public void setUp() {
+        // The frame statistics ask for every frame: frames must take time on the virtual clock
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_TIME);
+    }
+
+    @Test
+    public void scriptSwipesAndScrollsUntilStopped() {
+        ActivityController<StressActivity> controller = Robolectric.buildActivity(StressActivity.class).setup();
+        StressActivity activity = controller.get();
+        RoboMenuItem script = new RoboMenuItem(StressActivity.MENU_SCRIPT);
+
+        assertTrue(activity.onOptionsItemSelected(script));
+        ShadowLooper.idleMainLooper(SCRIPT_TIME, TimeUnit.SECONDS);
+        assertTrue(activity.onOptionsItemSelected(script));
+        ShadowLooper.idleMainLooper(SETTLE_TIME, TimeUnit.SECONDS);
+
+        // Rows swiped to the left are removed
+        assertTrue(activity.mAdapter.getCount() < StressActivity.ROW_COUNT);
+        SwipeDebugReport report = activity.mAdapter.getDebugReport();
+        assertEquals(0, report.pendingDismisses);
+        assertEquals(0, report.runningAnimations);
+        assertTrue(report.rows > 0);
+
+        controller.pause().stop().destroy();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+/**
+ * Watches the frame times while swipes are running and steps the {@link SwipeQuality} down when
+ * too many frames are missed, or back up after a while without missed frames.
+ *
+ * Frames are only observed while the host is busy, so idle time between gestures never counts
+ * as a missed frame. The frame interval is the shortest interval seen so far, which adapts to
+ * displays that refresh faster than 60Hz.
+ *
+ * A new quality is only handed to the host on the first frame it is idle again: changing the
+ * effects halfway through a gesture or animation would make the row jump.
+ */
+final class AdaptiveQualityMonitor implements SwipeAnimationDriver.FrameCallback {
+    // Amount of frames (drawn or missed) to judge at once
+    private static final int WINDOW_FRAMES = 30;
+    // Step down if more than this fraction of the window was missed
+    private static final float DEGRADE_FRACTION = 0.2f;
+    // Step up after this many windows in a row without a missed frame
+    private static final int RESTORE_WINDOWS = 3;
+    private static final long DEFAULT_FRAME_INTERVAL = 16666667;
+    private static final long MIN_FRAME_INTERVAL = 4000000;
+    private static final SwipeQuality[] LEVELS = SwipeQuality.values();
+
+    interface Host {
+        /**
+         * @return true while a gesture or animation is running
+         */
+        boolean isBusy();
+
+        /**
+         * Apply a new quality. Only called while the host is not busy.
+         *
+         * @param quality the new quality
+         * @param degraded true if the quality went down, false if it was restored
+         */
+        void onQualityChanged(SwipeQuality quality, boolean degraded);
+    }
+
+    private final Host mHost;
+    private SwipeAnimationDriver mDriver;
+    private boolean mPosted = false;
+    // The quality the frames call for, and the one the host has applied
+    private SwipeQuality mQuality = SwipeQuality.FULL;
+    private SwipeQuality mAppliedQuality = SwipeQuality.FULL;
+
+    private long mFrameInterval = DEFAULT_FRAME_INTERVAL;
+    private long mLastFrameNanos = 0;
+    private int mWindowFrames = 0;
+    private int mWindowMissed = 0;
+    private int mHealthyWindows = 0;
+
+    AdaptiveQualityMonitor(Host host) {
+        mHost = host;
+    }
+
+    /**
+     * @return the quality that was last handed to the host
+     */
+    SwipeQuality getQuality() {
+        return mAppliedQuality;
+    }
+
+    /**
+     * @return true if a new quality is waiting for the host to become idle
+     */
+    boolean isChangePending() {
+        return mQuality != mAppliedQuality;
+    }
+
+    /**
+     * Start watching frames, if it isn't already. Call when a gesture or animation starts.
+     *
+     * @param driver the driver that produces the frames of the swipe animations
+     */
+    void start(SwipeAnimationDriver driver) {
+        if (mPosted && driver == mDriver) return;
+        stop();
+        mDriver = driver;
+        mPosted = true;
+        mDriver.postFrameCallback(this);
+    }
+
+    /**
+     * Stop watching frames. The quality is kept.
+     */
+    void stop() {
+        if (mPosted) mDriver.removeFrameCallback(this);
+        mPosted = false;
+        mLastFrameNanos = 0;
+    }
+
+    /**
+     * Go back to full quality and forget the frame history
+     */
+    void reset() {
+        stop();
+        mQuality = SwipeQuality.FULL;
+        mAppliedQuality = SwipeQuality.FULL;
+        mWindowFrames = 0;
+        mWindowMissed = 0;
+        mHealthyWindows = 0;
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        mPosted = false;
+        if (!mHost.isBusy()) {
+            mLastFrameNanos = 0;
+            if (isChangePending()) {
+                boolean degraded = mQuality.compareTo(mAppliedQuality) > 0;
+                mAppliedQuality = mQuality;
+                mHost.onQualityChanged(mQuality, degraded);
+            }
+            return;
+        }
+
+        if (mLastFrameNanos != 0 && frameTimeNanos > mLastFrameNanos) {
+            long interval = frameTimeNanos - mLastFrameNanos;
+            if (interval >= MIN_FRAME_INTERVAL && interval < mFrameInterval) mFrameInterval = interval;
+            // Frames that were skipped show up as a multiple of the frame interval
+            int missed = (int) ((interval + mFrameInterval / 2) / mFrameInterval) - 1;
+            mWindowFrames += 1 + Math.max(0, missed);
+            mWindowMissed += Math.max(0, missed);
+            if (mWindowFrames >= WINDOW_FRAMES) judgeWindow();
+        }
+        mLastFrameNanos = frameTimeNanos;
+
+        mPosted = true;
+        mDriver.postFrameCallback(this);
+    }
+
+    private void judgeWindow() {
+        if (mWindowMissed > mWindowFrames * DEGRADE_FRACTION) {
+            mHealthyWindows = 0;
+            if (mQuality.ordinal() < LEVELS.length - 1) {
+                mQuality = LEVELS[mQuality.ordinal() + 1];
+            }
+        } else if (mWindowMissed == 0) {
+            if (++mHealthyWindows >= RESTORE_WINDOWS && mQuality != SwipeQuality.FULL) {
+                mHealthyWindows = 0;
+                mQuality = LEVELS[mQuality.ordinal() - 1];
+            }
+        } else {
+            mHealthyWindows = 0;
+        }
+        mWindowFrames = 0;
+        mWindowMissed = 0;
+    }
+}
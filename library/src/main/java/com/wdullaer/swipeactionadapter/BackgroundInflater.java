@@ -0,0 +1,278 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Inflates the backgrounds of rows on an {@link Executor}, in the spirit of AsyncLayoutInflater.
+ *
+ * A row gets invisible placeholders right away, which are swapped for the real backgrounds on
+ * the main thread once they are inflated. A row that is swiped before that inflates its
+ * backgrounds on the main thread, unless the executor is already busy with them. Whole rows can
+ * also be built ahead of time, so a ListView that needs a new row can take one that is ready.
+ *
+ * Requests are drained one at a time, so the LayoutInflater is never used by two threads at
+ * once, whatever the executor. Layouts that can't be inflated off the main thread (e.g. because
+ * a View needs a Looper), and requests the executor rejects, are inflated on the main thread
+ * instead, with a warning in the log.
+ */
+final class BackgroundInflater {
+    private static final String TAG = "BackgroundInflater";
+
+    private final Executor mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentLinkedQueue<Request> mQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mDraining = new AtomicBoolean();
+
+    // Only used by the thread that drains the queue
+    private Context mInflaterContext;
+    private LayoutInflater mInflater;
+
+    // Written on the main thread only, read by the drain to skip stale requests
+    private volatile int mGeneration = 0;
+    private final ArrayDeque<SwipeViewGroup> mRows = new ArrayDeque<>();
+    private int mPendingRows = 0;
+    private int mInflatedCount = 0;
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    private final class Request implements Runnable {
+        final int generation = mGeneration;
+        final Context context;
+        final SwipeDirection[] directions;
+        final int[] resIds;
+        // The row waiting for its backgrounds, or null to build a new row
+        final SwipeViewGroup row;
+        final View[] placeholders;
+        final View[] backgrounds;
+        // Set by the thread that inflates the backgrounds of a row: the drain or the main thread
+        final AtomicBoolean claimed = new AtomicBoolean();
+        SwipeViewGroup builtRow;
+        RuntimeException error;
+        // Main thread only
+        boolean delivered = false;
+
+        Request(Context context, Map<SwipeDirection, Integer> backgroundResIds, SwipeViewGroup row) {
+            this.context = context;
+            this.row = row;
+            int size = backgroundResIds.size();
+            directions = new SwipeDirection[size];
+            resIds = new int[size];
+            placeholders = row != null ? new View[size] : null;
+            backgrounds = new View[size];
+            int i = 0;
+            for(Map.Entry<SwipeDirection, Integer> entry : backgroundResIds.entrySet()) {
+                directions[i] = entry.getKey();
+                resIds[i] = entry.getValue();
+                i++;
+            }
+        }
+
+        @Override
+        public void run() {
+            deliver(this);
+        }
+    }
+
+    /**
+     * Loads the backgrounds of a row that is swiped while it still shows placeholders
+     */
+    private final class Loader implements Runnable {
+        private final Request mRequest;
+
+        Loader(Request request) {
+            mRequest = request;
+        }
+
+        @Override
+        public void run() {
+            // If the drain already took the request, its backgrounds arrive in a moment
+            if(mRequest.delivered || !mRequest.claimed.compareAndSet(false, true)) return;
+            for(int i = 0; i < mRequest.resIds.length; i++) {
+                mRequest.backgrounds[i] = View.inflate(mRequest.context, mRequest.resIds[i], null);
+            }
+            deliver(mRequest);
+        }
+    }
+
+    BackgroundInflater(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * Give a new row placeholders for all its backgrounds and queue the inflation of the real ones
+     *
+     * @param row the row that needs backgrounds
+     * @param backgroundResIds the layout to inflate for every direction
+     */
+    @MainThread
+    void inflateBackgrounds(SwipeViewGroup row, Map<SwipeDirection, Integer> backgroundResIds) {
+        if(backgroundResIds.isEmpty()) return;
+        Request request = new Request(row.getContext(), backgroundResIds, row);
+        for(int i = 0; i < request.directions.length; i++) {
+            request.placeholders[i] = new View(row.getContext());
+            row.addBackground(request.placeholders[i], request.directions[i]);
+        }
+        row.setBackgroundLoader(new Loader(request));
+        enqueue(request);
+    }
+
+    /**
+     * Build rows with all their backgrounds ahead of time, until this many are ready or on their way
+     *
+     * @param context the context of the ListView
+     * @param backgroundResIds the layout to inflate for every direction
+     * @param count the amount of rows to keep ready
+     */
+    @MainThread
+    void prebuildRows(Context context, Map<SwipeDirection, Integer> backgroundResIds, int count) {
+        for(int i = mRows.size() + mPendingRows; i < count; i++) {
+            mPendingRows++;
+            enqueue(new Request(context, backgroundResIds, null));
+        }
+    }
+
+    /**
+     * @return a row that was built ahead of time, or null if none is ready
+     */
+    @MainThread
+    SwipeViewGroup pollRow() {
+        return mRows.poll();
+    }
+
+    /**
+     * @return the amount of backgrounds that were inflated for rows, on any thread
+     */
+    @MainThread
+    int getInflatedCount() {
+        return mInflatedCount;
+    }
+
+    /**
+     * Drop the rows that were built ahead of time and ignore all requests that are still running.
+     * Rows that are waiting for their backgrounds load them when they are swiped.
+     * Call when the backgrounds change.
+     */
+    @MainThread
+    void invalidate() {
+        mGeneration++;
+        mRows.clear();
+        mPendingRows = 0;
+    }
+
+    private void enqueue(Request request) {
+        mQueue.add(request);
+        startDrain();
+    }
+
+    private void startDrain() {
+        if(!mDraining.compareAndSet(false, true)) return;
+        try {
+            mExecutor.execute(mDrainTask);
+        } catch (RejectedExecutionException e) {
+            mDraining.set(false);
+            // Nothing will drain the queue: hand what is in it to the main thread
+            Request request;
+            while((request = mQueue.poll()) != null) {
+                request.error = e;
+                mMainHandler.post(request);
+            }
+        }
+    }
+
+    @WorkerThread
+    private void drain() {
+        Request request;
+        while((request = mQueue.poll()) != null) {
+            if(request.generation != mGeneration) continue;
+            // The row was swiped and loaded its backgrounds on the main thread
+            if(request.row != null && !request.claimed.compareAndSet(false, true)) continue;
+            try {
+                inflate(request);
+            } catch (RuntimeException e) {
+                request.error = e;
+            }
+            mMainHandler.post(request);
+        }
+        mDraining.set(false);
+        // A request may have been queued after the last poll, but before the flag was cleared
+        if(!mQueue.isEmpty()) startDrain();
+    }
+
+    @WorkerThread
+    private void inflate(Request request) {
+        if(request.context != mInflaterContext) {
+            // The inflater of the context itself is not safe to share with the main thread
+            mInflater = LayoutInflater.from(request.context).cloneInContext(request.context);
+            mInflaterContext = request.context;
+        }
+        for(int i = 0; i < request.resIds.length; i++) {
+            request.backgrounds[i] = mInflater.inflate(request.resIds[i], null);
+        }
+        if(request.row == null) {
+            request.builtRow = new SwipeViewGroup(request.context);
+            for(int i = 0; i < request.backgrounds.length; i++) {
+                request.builtRow.addBackground(request.backgrounds[i], request.directions[i]);
+            }
+        }
+    }
+
+    @MainThread
+    private void deliver(Request request) {
+        if(request.delivered) return;
+        request.delivered = true;
+        if(request.error != null) {
+            Log.w(TAG, "Could not inflate backgrounds on the executor", request.error);
+        }
+        if(request.row == null) {
+            if(request.error == null) mInflatedCount += request.resIds.length;
+            if(request.generation != mGeneration) return;
+            mPendingRows--;
+            // getView builds the row itself if this one failed
+            if(request.error == null) mRows.add(request.builtRow);
+            return;
+        }
+        request.row.setBackgroundLoader(null);
+        for(int i = 0; i < request.directions.length; i++) {
+            View background = request.error != null
+                    ? View.inflate(request.context, request.resIds[i], null)
+                    : request.backgrounds[i];
+            request.row.replaceBackground(request.directions[i], request.placeholders[i], background);
+        }
+        mInflatedCount += request.resIds.length;
+    }
+}
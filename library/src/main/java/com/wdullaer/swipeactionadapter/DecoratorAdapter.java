@@ -27,6 +27,19 @@ import android.widget.BaseAdapter;
  */
 public class DecoratorAdapter extends BaseAdapter {
     protected final BaseAdapter mBaseAdapter;
+    private PositionRemapper mRemapper = null;
+    private boolean mCoalesceNotifications = false;
+    private boolean mChangePending = false;
+    private boolean mInvalidatePending = false;
+    private SwipeAnimationDriver mFrameDriver = null;
+    private SwipeAnimationDriver mPostedDriver = null;
+    private final SwipeAnimationDriver.FrameCallback mNotifyCallback = new SwipeAnimationDriver.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mPostedDriver = null;
+            flushNotifications();
+        }
+    };
 
     public DecoratorAdapter(BaseAdapter baseAdapter){
         mBaseAdapter = baseAdapter;
@@ -37,24 +50,117 @@ public class DecoratorAdapter extends BaseAdapter {
         return mBaseAdapter;
     }
 
+    /**
+     * Enable hiding items before they are removed from the wrapped adapter, for example when
+     * the data comes from a Cursor or a paged source that takes a while to reload.
+     * Positions are translated in O(log n), so it works for lists with millions of items.
+     * While enabled, all positions this adapter exposes are visible positions: use
+     * {@link #getSourcePosition(int)} to find the item in the wrapped adapter.
+     * The default value for this property is false
+     *
+     * @param enabled true to enable remapping, false to show all items of the wrapped adapter again
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public DecoratorAdapter setPositionRemapping(boolean enabled){
+        if(enabled == (mRemapper != null)) return this;
+        boolean hadHidden = mRemapper != null && mRemapper.getHiddenCount() > 0;
+        mRemapper = enabled ? new PositionRemapper() : null;
+        if(hadHidden) notifyDataSetChanged();
+        return this;
+    }
+
+    /**
+     * Hide an item right away, without waiting for the wrapped adapter to remove it
+     *
+     * @param position the visible position of the item
+     * @return the position of the item in the wrapped adapter
+     */
+    @SuppressWarnings("unused")
+    public int hidePosition(final int position){
+        if(mRemapper == null) throw new IllegalStateException("Call setPositionRemapping(true) before hiding items");
+        int sourcePosition = mRemapper.toSourcePosition(position);
+        mRemapper.hide(sourcePosition);
+        notifyDataSetChanged();
+        return sourcePosition;
+    }
+
+    /**
+     * Show a hidden item again, for example when removing it from the source failed
+     *
+     * @param sourcePosition the position of the item in the wrapped adapter
+     */
+    @SuppressWarnings("unused")
+    public void restoreSourcePosition(final int sourcePosition){
+        if(mRemapper == null || !mRemapper.isHidden(sourcePosition)) return;
+        mRemapper.restore(sourcePosition);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Tell the remapping layer that the wrapped adapter removed items, so hidden positions can
+     * be folded back. Call this right after the data behind the wrapped adapter changed, instead
+     * of notifying it: this notifies the ListView.
+     * This takes linear time in the position of the last hidden item, so confirm in batches.
+     *
+     * @param sourcePositions the positions of the removed items, as they were before the removal
+     */
+    @SuppressWarnings("unused")
+    public void confirmRemovals(final int... sourcePositions){
+        if(mRemapper != null) mRemapper.confirm(sourcePositions);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @param position a visible position
+     * @return the position of the item in the wrapped adapter
+     */
+    @SuppressWarnings("unused")
+    public int getSourcePosition(final int position){
+        return mRemapper == null ? position : mRemapper.toSourcePosition(position);
+    }
+
+    /**
+     * @param sourcePosition a position in the wrapped adapter, or the amount of items in it
+     * @return the amount of visible positions before the source position
+     */
+    int toVisibleBoundary(final int sourcePosition){
+        return mRemapper == null ? sourcePosition : mRemapper.toBoundary(sourcePosition);
+    }
+
+    /**
+     * Shift the hidden positions after the wrapped adapter inserted items
+     */
+    void onSourceInserted(final int sourcePosition, final int count){
+        if(mRemapper != null) mRemapper.insert(sourcePosition, count);
+    }
+
+    /**
+     * Fold back the hidden positions after the wrapped adapter removed a range of items
+     */
+    void onSourceRemoved(final int sourcePosition, final int count){
+        if(mRemapper != null) mRemapper.remove(sourcePosition, count);
+    }
+
     @Override
     public int getCount(){
-        return mBaseAdapter.getCount();
+        if(mRemapper == null) return mBaseAdapter.getCount();
+        return Math.max(0, mBaseAdapter.getCount() - mRemapper.getHiddenCount());
     }
 
     @Override
     public View getView(final int position, final View convertView, final ViewGroup parent){
-        return mBaseAdapter.getView(position,convertView,parent);
+        return mBaseAdapter.getView(getSourcePosition(position),convertView,parent);
     }
 
     @Override
     public Object getItem(final int position){
-        return mBaseAdapter.getItem(position);
+        return mBaseAdapter.getItem(getSourcePosition(position));
     }
 
     @Override
     public long getItemId(final int position){
-        return mBaseAdapter.getItemId(position);
+        return mBaseAdapter.getItemId(getSourcePosition(position));
     }
 
     @Override
@@ -64,12 +170,12 @@ public class DecoratorAdapter extends BaseAdapter {
 
     @Override
     public View getDropDownView(final int position, final View convertView, final ViewGroup parent){
-        return mBaseAdapter.getDropDownView(position,convertView,parent);
+        return mBaseAdapter.getDropDownView(getSourcePosition(position),convertView,parent);
     }
 
     @Override
     public int getItemViewType(final int position){
-        return mBaseAdapter.getItemViewType(position);
+        return mBaseAdapter.getItemViewType(getSourcePosition(position));
     }
 
     @Override
@@ -84,22 +190,79 @@ public class DecoratorAdapter extends BaseAdapter {
 
     @Override
     public boolean isEmpty(){
-        return mBaseAdapter.isEmpty();
+        return mRemapper == null ? mBaseAdapter.isEmpty() : getCount() == 0;
     }
 
     @Override
     public boolean isEnabled(final int position){
-        return mBaseAdapter.isEnabled(position);
+        return mBaseAdapter.isEnabled(getSourcePosition(position));
+    }
+
+    /**
+     * Collapse all notifyDataSetChanged and notifyDataSetInvalidated calls made during a frame
+     * into a single notification, delivered at the start of the next frame before the ListView
+     * lays out. An invalidation wins over a change. Layouts started by the library itself, such
+     * as the collapse of a dismissed row, deliver the pending notification first.
+     * The default value for this property is false: every notification is delivered right away
+     *
+     * @param coalesce true to deliver at most one notification per frame
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public DecoratorAdapter setCoalesceNotifications(boolean coalesce){
+        mCoalesceNotifications = coalesce;
+        if(!coalesce) flushNotifications();
+        return this;
+    }
+
+    /**
+     * Deliver the notification that is waiting for the next frame right away
+     */
+    public void flushNotifications(){
+        if(mPostedDriver != null) {
+            mPostedDriver.removeFrameCallback(mNotifyCallback);
+            mPostedDriver = null;
+        }
+        boolean invalidated = mInvalidatePending;
+        boolean changed = mChangePending;
+        mInvalidatePending = false;
+        mChangePending = false;
+        if(invalidated) mBaseAdapter.notifyDataSetInvalidated();
+        else if(changed) mBaseAdapter.notifyDataSetChanged();
+    }
+
+    /**
+     * @return the driver whose frames deliver coalesced notifications
+     */
+    protected SwipeAnimationDriver getFrameDriver(){
+        if(mFrameDriver == null) mFrameDriver = new PlatformAnimationDriver();
+        return mFrameDriver;
+    }
+
+    private void postNotification(){
+        if(mPostedDriver != null) return;
+        mPostedDriver = getFrameDriver();
+        mPostedDriver.postFrameCallback(mNotifyCallback);
     }
 
     @Override
     public void notifyDataSetChanged(){
-        mBaseAdapter.notifyDataSetChanged();
+        if(!mCoalesceNotifications) {
+            mBaseAdapter.notifyDataSetChanged();
+            return;
+        }
+        mChangePending = true;
+        postNotification();
     }
 
     @Override
     public void notifyDataSetInvalidated(){
-        mBaseAdapter.notifyDataSetInvalidated();
+        if(!mCoalesceNotifications) {
+            mBaseAdapter.notifyDataSetInvalidated();
+            return;
+        }
+        mInvalidatePending = true;
+        postNotification();
     }
 
     @Override
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import java.util.Arrays;
+
+/**
+ * Advances every running row animation from a single frame tick.
+ *
+ * The timing state of all animations (handle, start time, duration) lives in parallel primitive
+ * arrays. The callbacks are still one {@link SwipeAnimationDriver.Animation} object per slot, and
+ * what they animate is up to their owner: only the per frame loop works on the arrays. Each tick
+ * first updates every animation and only then reports the ones that completed, so rows that
+ * finish in the same frame are flushed as one batch. The engine has no clock of its own: the
+ * owning {@link SwipeAnimationDriver} calls {@link #doFrame(long)}.
+ */
+final class FrameAnimationEngine {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final long NOT_STARTED = -1;
+
+    private int[] mHandles = new int[INITIAL_CAPACITY];
+    private long[] mStartTimes = new long[INITIAL_CAPACITY];
+    private long[] mDurations = new long[INITIAL_CAPACITY];
+    private SwipeAnimationDriver.Animation[] mAnimations = new SwipeAnimationDriver.Animation[INITIAL_CAPACITY];
+    private int mCount = 0;
+    private int mNextHandle = 1;
+
+    private SwipeAnimationDriver.Animation[] mFinished = new SwipeAnimationDriver.Animation[INITIAL_CAPACITY];
+    private boolean mInFrame = false;
+
+    /**
+     * Add an animation. It starts on the next frame.
+     *
+     * @return the handle of the animation
+     */
+    int start(long duration, SwipeAnimationDriver.Animation animation) {
+        if (mCount == mHandles.length) {
+            int capacity = mCount * 2;
+            mHandles = Arrays.copyOf(mHandles, capacity);
+            mStartTimes = Arrays.copyOf(mStartTimes, capacity);
+            mDurations = Arrays.copyOf(mDurations, capacity);
+            mAnimations = Arrays.copyOf(mAnimations, capacity);
+        }
+        int handle = mNextHandle++;
+        mHandles[mCount] = handle;
+        mStartTimes[mCount] = NOT_STARTED;
+        mDurations[mCount] = duration;
+        mAnimations[mCount] = animation;
+        mCount++;
+        return handle;
+    }
+
+    /**
+     * Cancel an animation and call its onEnd callback
+     */
+    void cancel(int handle) {
+        for (int i = 0; i < mCount; i++) {
+            if (mHandles[i] != handle || mAnimations[i] == null) continue;
+            SwipeAnimationDriver.Animation animation = mAnimations[i];
+            mAnimations[i] = null;
+            // Removing the slot during a frame would shift the animations that still need an update
+            if (!mInFrame) compact();
+            animation.onEnd(true);
+            return;
+        }
+    }
+
+    /**
+     * @return the amount of running animations
+     */
+    int getCount() {
+        int count = 0;
+        for (int i = 0; i < mCount; i++) if (mAnimations[i] != null) count++;
+        return count;
+    }
+
+    /**
+     * @return true if there are animations that need another frame
+     */
+    boolean hasWork() {
+        return mCount > 0;
+    }
+
+    /**
+     * Advance all animations to the given time
+     *
+     * @param frameTimeMillis the start time of the frame
+     */
+    void doFrame(long frameTimeMillis) {
+        final int count = mCount; // animations started during this frame start on the next one
+        int finished = 0;
+
+        mInFrame = true;
+        for (int i = 0; i < count; i++) {
+            SwipeAnimationDriver.Animation animation = mAnimations[i];
+            if (animation == null) continue;
+
+            if (mStartTimes[i] == NOT_STARTED) mStartTimes[i] = frameTimeMillis;
+            long duration = mDurations[i];
+            float fraction = duration <= 0 ? 1f
+                    : Math.min(1f, (float) (frameTimeMillis - mStartTimes[i]) / duration);
+            animation.onUpdate(fraction);
+
+            // The animation could have been cancelled from its own update
+            if (fraction >= 1f && mAnimations[i] != null) {
+                if (finished == mFinished.length) mFinished = Arrays.copyOf(mFinished, finished * 2);
+                mFinished[finished++] = animation;
+                mAnimations[i] = null;
+            }
+        }
+        mInFrame = false;
+        compact();
+
+        for (int i = 0; i < finished; i++) {
+            SwipeAnimationDriver.Animation animation = mFinished[i];
+            mFinished[i] = null;
+            animation.onEnd(false);
+        }
+    }
+
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < mCount; read++) {
+            if (mAnimations[read] == null) continue;
+            if (write != read) {
+                mHandles[write] = mHandles[read];
+                mStartTimes[write] = mStartTimes[read];
+                mDurations[write] = mDurations[read];
+                mAnimations[write] = mAnimations[read];
+            }
+            write++;
+        }
+        for (int i = write; i < mCount; i++) mAnimations[i] = null;
+        mCount = write;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import java.util.ArrayList;
+
+/**
+ * {@link SwipeAnimationDriver} with a virtual clock that only moves when it is told to.
+ *
+ * Meant for tests and benchmarks: frames are produced synchronously by {@link #advance(long)} or
+ * {@link #runUntilIdle()}, so a complete swipe, dismiss and flush cycle runs without waiting on
+ * the display. Animations run on the same engine as on a device.
+ */
+@SuppressWarnings("unused")
+public class ManualAnimationDriver implements SwipeAnimationDriver {
+    private static final int MAX_IDLE_FRAMES = 100000;
+
+    private final long mFrameInterval;
+    private long mTime;
+    // Frames are produced on a fixed grid, so advancing in small steps doesn't delay them
+    private long mNextFrameTime;
+
+    private final FrameAnimationEngine mEngine = new FrameAnimationEngine();
+    private ArrayList<FrameCallback> mFrameCallbacks = new ArrayList<>();
+    private ArrayList<FrameCallback> mRunningFrameCallbacks = new ArrayList<>();
+
+    /**
+     * Create a driver that produces a frame every 16ms, starting at time 0
+     */
+    public ManualAnimationDriver() {
+        this(16);
+    }
+
+    /**
+     * @param frameInterval the time between two frames in milliseconds
+     */
+    public ManualAnimationDriver(long frameInterval) {
+        if (frameInterval < 1) throw new IllegalArgumentException("The frame interval must be positive");
+        mFrameInterval = frameInterval;
+        mNextFrameTime = frameInterval;
+    }
+
+    @Override
+    public long uptimeMillis() {
+        return mTime;
+    }
+
+    @Override
+    public int start(long duration, Animation animation) {
+        return mEngine.start(duration, animation);
+    }
+
+    @Override
+    public void cancel(int handle) {
+        mEngine.cancel(handle);
+    }
+
+    @Override
+    public int getRunningCount() {
+        return mEngine.getCount();
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        mFrameCallbacks.add(callback);
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mFrameCallbacks.remove(callback);
+    }
+
+    /**
+     * Move the clock forward, producing a frame for every frame interval that passes
+     *
+     * @param millis the amount of time to move forward
+     */
+    public void advance(long millis) {
+        long target = mTime + millis;
+        while (mNextFrameTime <= target) {
+            mTime = mNextFrameTime;
+            doFrame();
+        }
+        mTime = target;
+    }
+
+    /**
+     * Produce frames until no animations are running and no frame callbacks are pending
+     *
+     * @return the amount of frames that were produced
+     */
+    public int runUntilIdle() {
+        int frames = 0;
+        while (!isIdle()) {
+            if (++frames > MAX_IDLE_FRAMES) {
+                throw new IllegalStateException("Animations did not settle after " + MAX_IDLE_FRAMES + " frames");
+            }
+            mTime = mNextFrameTime;
+            doFrame();
+        }
+        return frames;
+    }
+
+    /**
+     * @return true if no animations are running and no frame callbacks are pending
+     */
+    public boolean isIdle() {
+        return !mEngine.hasWork() && mFrameCallbacks.isEmpty();
+    }
+
+    private void doFrame() {
+        mNextFrameTime = mTime + mFrameInterval;
+        long frameTimeNanos = mTime * 1000000L;
+
+        ArrayList<FrameCallback> callbacks = mFrameCallbacks;
+        mFrameCallbacks = mRunningFrameCallbacks;
+        mRunningFrameCallbacks = callbacks;
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).doFrame(frameTimeNanos);
+        callbacks.clear();
+
+        mEngine.doFrame(mTime);
+    }
+}
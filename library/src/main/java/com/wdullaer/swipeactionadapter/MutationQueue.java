@@ -0,0 +1,136 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.AnyThread;
+import android.support.annotation.MainThread;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Collects changes to the data of the wrapped adapter from any thread and applies them in
+ * batches on the main thread.
+ *
+ * Producers never wait: offering a change adds it to a lock-free queue and posts a drain to the
+ * main thread if none is on its way. The drain only applies changes when the host says it is
+ * safe to do so. Otherwise it tries again on every frame until it is.
+ */
+final class MutationQueue implements SwipeAnimationDriver.FrameCallback {
+    static final int INSERT = 0;
+    static final int REMOVE = 1;
+    static final int UPDATE = 2;
+
+    interface Host {
+        /**
+         * @return true if the data can change without disturbing a gesture or animation
+         */
+        boolean isSafeToMutate();
+
+        /**
+         * Apply a single change
+         *
+         * @param type INSERT, REMOVE or UPDATE
+         * @param sourcePosition the position of the first item in the wrapped adapter
+         * @param count the amount of items
+         * @param change the change to the data
+         */
+        void applyMutation(int type, int sourcePosition, int count, Runnable change);
+
+        /**
+         * Called once after every batch of changes
+         */
+        void onMutationsApplied();
+
+        /**
+         * @return the driver to wait for the next frame with
+         */
+        SwipeAnimationDriver getFrameDriver();
+    }
+
+    private static final class Mutation {
+        final int type;
+        final int sourcePosition;
+        final int count;
+        final Runnable change;
+
+        Mutation(int type, int sourcePosition, int count, Runnable change) {
+            this.type = type;
+            this.sourcePosition = sourcePosition;
+            this.count = count;
+            this.change = change;
+        }
+    }
+
+    private final Host mHost;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentLinkedQueue<Mutation> mQueue = new ConcurrentLinkedQueue<>();
+    // True while a drain is posted to the main thread or waiting for a frame
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    MutationQueue(Host host) {
+        mHost = host;
+    }
+
+    /**
+     * Queue a change. Can be called from any thread.
+     */
+    @AnyThread
+    void offer(int type, int sourcePosition, int count, Runnable change) {
+        mQueue.add(new Mutation(type, sourcePosition, count, change));
+        if (mScheduled.compareAndSet(false, true)) mMainHandler.post(mDrainTask);
+    }
+
+    /**
+     * @return the amount of changes that are not applied yet
+     */
+    int size() {
+        return mQueue.size();
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        drain();
+    }
+
+    @MainThread
+    private void drain() {
+        if (!mHost.isSafeToMutate()) {
+            // Keep mScheduled set, so producers don't post drains that would fail as well
+            mHost.getFrameDriver().postFrameCallback(this);
+            return;
+        }
+        // Clear the flag first: a change offered during the batch then schedules a new drain
+        mScheduled.set(false);
+        boolean applied = false;
+        Mutation mutation;
+        while ((mutation = mQueue.poll()) != null) {
+            mHost.applyMutation(mutation.type, mutation.sourcePosition, mutation.count, mutation.change);
+            applied = true;
+        }
+        if (applied) mHost.onMutationsApplied();
+    }
+}
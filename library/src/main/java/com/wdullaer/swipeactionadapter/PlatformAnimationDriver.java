@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.animation.ValueAnimator;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+
+/**
+ * {@link SwipeAnimationDriver} backed by the display's frame clock.
+ *
+ * All running animations are advanced by a {@link FrameAnimationEngine} from a single
+ * {@link Choreographer} callback per frame, or a Handler before Jelly Bean. The callback is only
+ * scheduled while there are animations or frame callbacks waiting.
+ */
+class PlatformAnimationDriver implements SwipeAnimationDriver {
+    private static final long FALLBACK_FRAME_DELAY = 16;
+
+    private final FrameAnimationEngine mEngine = new FrameAnimationEngine();
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private ArrayList<FrameCallback> mFrameCallbacks = new ArrayList<>();
+    private ArrayList<FrameCallback> mRunningFrameCallbacks = new ArrayList<>();
+    private boolean mFrameScheduled = false;
+    private Object mChoreographerCallback;
+    private final Runnable mFallbackFrame = new Runnable() {
+        @Override
+        public void run() {
+            doFrame(System.nanoTime());
+        }
+    };
+
+    @Override
+    public long uptimeMillis() {
+        return SystemClock.uptimeMillis();
+    }
+
+    @Override
+    public int start(long duration, Animation animation) {
+        int handle = mEngine.start(scaleDuration(duration), animation);
+        scheduleFrame();
+        return handle;
+    }
+
+    @Override
+    public void cancel(int handle) {
+        mEngine.cancel(handle);
+    }
+
+    @Override
+    public int getRunningCount() {
+        return mEngine.getCount();
+    }
+
+    @Override
+    public void postFrameCallback(FrameCallback callback) {
+        mFrameCallbacks.add(callback);
+        scheduleFrame();
+    }
+
+    @Override
+    public void removeFrameCallback(FrameCallback callback) {
+        mFrameCallbacks.remove(callback);
+    }
+
+    /**
+     * Honour the animator duration scale from the developer options, like the framework animators
+     */
+    private static long scaleDuration(long duration) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return duration;
+        return (long) (duration * ValueAnimator.getDurationScale());
+    }
+
+    private void scheduleFrame() {
+        if (mFrameScheduled) return;
+        mFrameScheduled = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mChoreographerCallback == null) {
+                mChoreographerCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        PlatformAnimationDriver.this.doFrame(frameTimeNanos);
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mChoreographerCallback);
+        } else {
+            mHandler.postDelayed(mFallbackFrame, FALLBACK_FRAME_DELAY);
+        }
+    }
+
+    private void doFrame(long frameTimeNanos) {
+        mFrameScheduled = false;
+        // Callbacks posted while running these belong to the next frame
+        ArrayList<FrameCallback> callbacks = mFrameCallbacks;
+        mFrameCallbacks = mRunningFrameCallbacks;
+        mRunningFrameCallbacks = callbacks;
+        for (int i = 0; i < callbacks.size(); i++) callbacks.get(i).doFrame(frameTimeNanos);
+        callbacks.clear();
+
+        // The frame time and uptimeMillis share the same monotonic clock
+        mEngine.doFrame(frameTimeNanos / 1000000L);
+        if (mEngine.hasWork()) scheduleFrame();
+    }
+}
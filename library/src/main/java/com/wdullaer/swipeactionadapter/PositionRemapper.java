@@ -0,0 +1,242 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import java.util.Arrays;
+
+/**
+ * Translates between the positions of a source adapter and the positions that remain visible
+ * once some of them are hidden.
+ *
+ * Hidden source positions are counted in a Fenwick tree, so both directions of the translation
+ * take O(log n). The tree only spans up to the highest hidden position: everything beyond it is
+ * visible and shifted by the total amount of hidden positions, so a source of millions of rows
+ * costs nothing until rows far down are hidden.
+ */
+final class PositionRemapper {
+    private static final int MIN_CAPACITY = 64;
+
+    // 1-based Fenwick tree of hidden source positions, covering positions [0, mCapacity)
+    private int[] mTree = new int[1];
+    private int mCapacity = 0;
+    // Sorted list of the hidden source positions
+    private int[] mHidden = new int[8];
+    private int mHiddenCount = 0;
+
+    /**
+     * @return the amount of hidden source positions
+     */
+    int getHiddenCount() {
+        return mHiddenCount;
+    }
+
+    /**
+     * @param sourcePosition a position in the source adapter
+     * @return true if the position is hidden
+     */
+    boolean isHidden(int sourcePosition) {
+        return Arrays.binarySearch(mHidden, 0, mHiddenCount, sourcePosition) >= 0;
+    }
+
+    /**
+     * Hide a source position
+     *
+     * @param sourcePosition a position in the source adapter
+     */
+    void hide(int sourcePosition) {
+        int index = Arrays.binarySearch(mHidden, 0, mHiddenCount, sourcePosition);
+        if (index >= 0) return;
+        index = -index - 1;
+        if (mHiddenCount == mHidden.length) mHidden = Arrays.copyOf(mHidden, mHiddenCount * 2);
+        System.arraycopy(mHidden, index, mHidden, index + 1, mHiddenCount - index);
+        mHidden[index] = sourcePosition;
+        mHiddenCount++;
+
+        if (sourcePosition >= mCapacity) {
+            grow(sourcePosition + 1);
+        } else {
+            update(sourcePosition + 1, 1);
+        }
+    }
+
+    /**
+     * Make a hidden source position visible again
+     *
+     * @param sourcePosition a position in the source adapter
+     */
+    void restore(int sourcePosition) {
+        int index = Arrays.binarySearch(mHidden, 0, mHiddenCount, sourcePosition);
+        if (index < 0) return;
+        System.arraycopy(mHidden, index + 1, mHidden, index, mHiddenCount - index - 1);
+        mHiddenCount--;
+        update(sourcePosition + 1, -1);
+    }
+
+    /**
+     * The source has removed items: forget them if they were hidden, and shift the hidden
+     * positions behind them. This rebuilds the tree, which takes linear time in the position of
+     * the last hidden item, so confirm removals in batches.
+     *
+     * @param removedSourcePositions the positions the source removed, before the removal
+     */
+    void confirm(int[] removedSourcePositions) {
+        int[] removed = removedSourcePositions.clone();
+        Arrays.sort(removed);
+        // A position that is reported twice was still only removed once
+        int removedCount = 0;
+        for (int i = 0; i < removed.length; i++) {
+            if (i == 0 || removed[i] != removed[i - 1]) removed[removedCount++] = removed[i];
+        }
+
+        int write = 0;
+        int shift = 0;
+        for (int read = 0; read < mHiddenCount; read++) {
+            int hidden = mHidden[read];
+            while (shift < removedCount && removed[shift] < hidden) shift++;
+            // The item is gone from the source: nothing left to hide
+            if (shift < removedCount && removed[shift] == hidden) continue;
+            mHidden[write++] = hidden - shift;
+        }
+        mHiddenCount = write;
+        rebuild(mCapacity);
+    }
+
+    /**
+     * The source has inserted items: shift the hidden positions behind them
+     *
+     * @param sourcePosition the position of the first inserted item
+     * @param count the amount of inserted items
+     */
+    void insert(int sourcePosition, int count) {
+        int from = firstHiddenFrom(sourcePosition);
+        if (from == mHiddenCount) return;
+        for (int i = from; i < mHiddenCount; i++) mHidden[i] += count;
+        resize();
+    }
+
+    /**
+     * The source has removed a range of items: forget them if they were hidden, and shift the
+     * hidden positions behind them
+     *
+     * @param sourcePosition the position of the first removed item, before the removal
+     * @param count the amount of removed items
+     */
+    void remove(int sourcePosition, int count) {
+        int from = firstHiddenFrom(sourcePosition);
+        if (from == mHiddenCount) return;
+        int to = firstHiddenFrom(sourcePosition + count);
+        System.arraycopy(mHidden, to, mHidden, from, mHiddenCount - to);
+        mHiddenCount -= to - from;
+        for (int i = from; i < mHiddenCount; i++) mHidden[i] -= count;
+        rebuild(mCapacity);
+    }
+
+    /**
+     * Forget all hidden positions
+     */
+    void clear() {
+        mHiddenCount = 0;
+        Arrays.fill(mTree, 0);
+    }
+
+    /**
+     * @param position a visible position
+     * @return the source position that is shown at the visible position
+     */
+    int toSourcePosition(int position) {
+        if (mHiddenCount == 0) return position;
+
+        // Descend the tree to the last node whose visible prefix is smaller than position + 1
+        int node = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(Math.max(1, mCapacity)); step > 0; step >>= 1) {
+            int next = node + step;
+            if (next > mCapacity) continue;
+            int visible = step - mTree[next];
+            if (visible < remaining) {
+                node = next;
+                remaining -= visible;
+            }
+        }
+        // Beyond the tree nothing is hidden
+        return node == mCapacity ? mCapacity + remaining - 1 : node;
+    }
+
+    /**
+     * @param sourcePosition a position in the source adapter
+     * @return the visible position of the source position, or -1 if it is hidden
+     */
+    int toPosition(int sourcePosition) {
+        if (mHiddenCount == 0) return sourcePosition;
+        if (isHidden(sourcePosition)) return -1;
+        return sourcePosition - hiddenBefore(Math.min(sourcePosition, mCapacity));
+    }
+
+    /**
+     * @param sourcePosition a position in the source adapter, or the amount of items in it
+     * @return the amount of visible positions before the source position
+     */
+    int toBoundary(int sourcePosition) {
+        if (mHiddenCount == 0) return sourcePosition;
+        return sourcePosition - hiddenBefore(Math.min(sourcePosition, mCapacity));
+    }
+
+    private int firstHiddenFrom(int sourcePosition) {
+        int index = Arrays.binarySearch(mHidden, 0, mHiddenCount, sourcePosition);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private void resize() {
+        int last = mHidden[mHiddenCount - 1];
+        if (last >= mCapacity) {
+            grow(last + 1);
+        } else {
+            rebuild(mCapacity);
+        }
+    }
+
+    private int hiddenBefore(int count) {
+        int sum = 0;
+        for (int node = count; node > 0; node -= node & -node) sum += mTree[node];
+        return sum;
+    }
+
+    private void update(int node, int delta) {
+        for (; node <= mCapacity; node += node & -node) mTree[node] += delta;
+    }
+
+    private void grow(int minCapacity) {
+        rebuild(Math.max(minCapacity, Math.max(MIN_CAPACITY, mCapacity * 2)));
+    }
+
+    /**
+     * Build the tree from the sorted list of hidden positions in linear time
+     */
+    private void rebuild(int capacity) {
+        if (capacity + 1 != mTree.length) {
+            mTree = new int[capacity + 1];
+        } else {
+            Arrays.fill(mTree, 0);
+        }
+        mCapacity = capacity;
+        for (int i = 0; i < mHiddenCount; i++) mTree[mHidden[i] + 1]++;
+        for (int node = 1; node <= mCapacity; node++) {
+            int parent = node + (node & -node);
+            if (parent <= mCapacity) mTree[parent] += mTree[node];
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+/**
+ * How the dim and fade effects are drawn
+ */
+public enum RenderMode {
+    /**
+     * Dim the backgrounds by drawing a scrim over them and fade the rows without an offscreen
+     * buffer: the SwipeViewGroup reports that it has no overlapping rendering and a content view
+     * that fades on its own is drawn from a hardware layer for the duration of the swipe
+     */
+    OVERLAY,
+    /**
+     * Dim and fade by changing the alpha of the views. This is the default, but it
+     * can force an offscreen buffer for every frame of the swipe
+     */
+    ALPHA
+}
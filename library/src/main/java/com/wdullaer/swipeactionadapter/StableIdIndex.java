@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.database.DataSetObserver;
+import android.widget.Adapter;
+import android.widget.AdapterView;
+
+import java.util.Arrays;
+
+/**
+ * Resolves stable item ids back to their current position in an {@link Adapter}.
+ *
+ * Lookups first probe the position the item was last seen at and its neighbourhood. Only when
+ * that fails is an open addressing hash of the whole adapter built. The hash is kept until the
+ * adapter reports a change or its item count no longer matches, so looking up items that were
+ * removed doesn't rebuild it every time. Positions found in the hash are checked against the
+ * adapter, which catches changes that were not reported yet.
+ */
+final class StableIdIndex {
+    private static final int PROBE_WINDOW = 8;
+
+    private long[] mKeys = new long[0];
+    private int[] mValues = new int[0]; // position + 1, 0 marks an empty slot
+    private boolean mBuilt = false;
+    private int mBuiltCount;
+    private Adapter mAdapter;
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            mBuilt = false;
+        }
+
+        @Override
+        public void onInvalidated() {
+            mBuilt = false;
+        }
+    };
+
+    /**
+     * Invalidate the index, for changes the adapter does not report
+     */
+    void reset() {
+        mBuilt = false;
+    }
+
+    /**
+     * Stop watching the adapter and invalidate the index
+     */
+    void release() {
+        if (mAdapter != null) mAdapter.unregisterDataSetObserver(mObserver);
+        mAdapter = null;
+        mBuilt = false;
+    }
+
+    /**
+     * Find the current position of an item
+     *
+     * @param adapter The adapter to search
+     * @param id The stable id of the item
+     * @param hint The position the item was at when its id was captured
+     * @return the current position, or {@link AdapterView#INVALID_POSITION} if the item is gone
+     */
+    int positionOf(Adapter adapter, long id, int hint) {
+        if (adapter != mAdapter) {
+            release();
+            mAdapter = adapter;
+            adapter.registerDataSetObserver(mObserver);
+        }
+        final int count = adapter.getCount();
+        // Items typically only move by a few places while an animation is running
+        int from = Math.max(0, hint - PROBE_WINDOW);
+        int to = Math.min(count - 1, hint + PROBE_WINDOW);
+        for (int offset = 0; offset <= PROBE_WINDOW; offset++) {
+            int before = hint - offset;
+            int after = hint + offset;
+            if (before >= from && before <= to && adapter.getItemId(before) == id) return before;
+            if (after >= from && after <= to && adapter.getItemId(after) == id) return after;
+        }
+
+        if (mBuilt && mBuiltCount == count) {
+            int position = find(id);
+            if (position == AdapterView.INVALID_POSITION) return position;
+            if (position < count && adapter.getItemId(position) == id) return position;
+            // The data changed without telling us yet
+        }
+        build(adapter, count);
+        return find(id);
+    }
+
+    private int find(long id) {
+        int mask = mKeys.length - 1;
+        for (int slot = hash(id) & mask; mValues[slot] != 0; slot = (slot + 1) & mask) {
+            if (mKeys[slot] == id) return mValues[slot] - 1;
+        }
+        return AdapterView.INVALID_POSITION;
+    }
+    private void build(Adapter adapter, int count) {
+        int capacity = Integer.highestOneBit(Math.max(2, count * 2 - 1)) << 1;
+        if (mKeys.length < capacity) {
+            mKeys = new long[capacity];
+            mValues = new int[capacity];
+        } else {
+            Arrays.fill(mValues, 0);
+        }
+
+        int mask = mKeys.length - 1;
+        for (int position = 0; position < count; position++) {
+            long id = adapter.getItemId(position);
+            int slot = hash(id) & mask;
+            while (mValues[slot] != 0 && mKeys[slot] != id) slot = (slot + 1) & mask;
+            mKeys[slot] = id;
+            mValues[slot] = position + 1;
+        }
+        mBuilt = true;
+        mBuiltCount = count;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -16,14 +16,24 @@
 
 package com.wdullaer.swipeactionadapter;
 
+import android.app.Activity;
+import android.app.Application;
+import android.database.DataSetObserver;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.annotation.AnyThread;
+import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AbsListView;
+import android.widget.AdapterView;
 import android.widget.BaseAdapter;
 import android.widget.ListView;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Adapter that adds support for multiple swipe actions to your ListView
@@ -36,11 +46,33 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
     private ListView mListView;
     private SwipeActionTouchListener mTouchListener;
     protected SwipeActionListener mSwipeActionListener;
+    private SwipeActionDispatcher mSwipeActionDispatcher;
     private boolean mFadeOut = false;
     private boolean mFixedBackgrounds = false;
     private boolean mDimBackgrounds = false;
+    private RenderMode mRenderMode = RenderMode.ALPHA;
+    private int mDimColor = 0x99FFFFFF;
     private float mFarSwipeFraction = 0.5f;
     private float mNormalSwipeFraction = 0.25f;
+    private SwipeAnimationDriver mAnimationDriver = null;
+    private long mAnimationDuration = -1;
+    private long mTouchPrediction = 0;
+    private boolean mLayerAnimations = false;
+    private boolean mDebugMode = false;
+    private SwipeDebugOverlay mDebugOverlay;
+    private int mInflatedBackgrounds = 0;
+    private int mWrappersCreated = 0;
+    private int mWrappersPooled = 0;
+    private int mWrappersRecycled = 0;
+    private AdaptiveQualityMonitor mQualityMonitor;
+    private OnQualityChangedListener mOnQualityChangedListener;
+    private long mDefaultAnimationTime = -1;
+    private ContentVersionProvider mContentVersionProvider;
+    private int mBindGeneration = 0;
+    private DataSetObserver mGenerationObserver;
+    private BackgroundInflater mBackgroundInflater;
+    private MutationQueue mMutationQueue;
+    private SwipeDirectionMask mDirectionMask;
 
     protected HashMap<SwipeDirection, Integer> mBackgroundResIds = new HashMap<>();
 
@@ -52,15 +84,45 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
     public View getView(final int position, final View convertView, final ViewGroup parent){
         SwipeViewGroup output = (SwipeViewGroup)convertView;
 
-        if(output == null) {
+        if(output == null && mBackgroundInflater != null) output = mBackgroundInflater.pollRow();
+        if(output != null && output != convertView) {
+            // Built ahead of time, the inflater counted its backgrounds
+            mWrappersPooled++;
+        } else if(output == null) {
+            boolean tracedCreate = SwipeTrace.begin(SwipeTrace.CREATE_ROW);
             output = new SwipeViewGroup(parent.getContext());
-            for(Map.Entry<SwipeDirection, Integer> entry : mBackgroundResIds.entrySet()) {
-                output.addBackground(View.inflate(parent.getContext(), entry.getValue(), null), entry.getKey());
+            boolean tracedInflate = SwipeTrace.begin(SwipeTrace.INFLATE_BACKGROUNDS);
+            if(mBackgroundInflater != null) {
+                mBackgroundInflater.inflateBackgrounds(output, mBackgroundResIds);
+            } else {
+                for(Map.Entry<SwipeDirection, Integer> entry : mBackgroundResIds.entrySet()) {
+                    output.addBackground(View.inflate(parent.getContext(), entry.getValue(), null), entry.getKey());
+                }
+                mInflatedBackgrounds += mBackgroundResIds.size();
             }
-            output.setSwipeTouchListener(mTouchListener);
+            SwipeTrace.end(tracedInflate);
+            SwipeTrace.end(tracedCreate);
+            mWrappersCreated++;
+        } else {
+            mWrappersRecycled++;
         }
+        if(mDebugOverlay != null) mDebugOverlay.invalidateSelf();
+        // A recycled row could still point at the listener of a previous setListView
+        output.setSwipeTouchListener(mTouchListener);
+        output.setRenderMode(mRenderMode);
+        output.setDimColor(mDimColor);
 
-        output.setContentView(super.getView(position,output.getContentView(),output));
+        if(mContentVersionProvider != null && hasStableIds()) {
+            long id = getItemId(position);
+            long version = mContentVersionProvider.getContentVersion(position);
+            // The recycled row already shows this item: skip the rebind
+            if(output.isBoundTo(id, version, mBindGeneration)) return output;
+            output.setContentView(super.getView(position,output.getContentView(),output));
+            output.setBinding(id, version, mBindGeneration);
+        } else {
+            output.setContentView(super.getView(position,output.getContentView(),output));
+            output.clearBinding();
+        }
 
         return output;
     }
@@ -75,7 +137,15 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
      */
     @Override
     public boolean hasActions(int position, SwipeDirection direction){
-        return mSwipeActionListener != null && mSwipeActionListener.hasActions(position, direction);
+        if(mSwipeActionListener == null) return false;
+        if(mDirectionMask != null) {
+            // The touch listener reports ListView positions, which count the header views
+            int adapterPosition = position - (mListView != null ? mListView.getHeaderViewsCount() : 0);
+            // Header and footer views have no actions
+            if(adapterPosition < 0 || adapterPosition >= getCount()) return false;
+            return mDirectionMask.has(getSourcePosition(adapterPosition), direction);
+        }
+        return mSwipeActionListener.hasActions(position, direction);
     }
 
     /**
@@ -104,7 +174,30 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
      */
     @Override
     public void onAction(ListView listView, int[] position, SwipeDirection[] direction){
-        if(mSwipeActionListener != null) mSwipeActionListener.onSwipe(position, direction);
+        long[] ids = new long[position.length];
+        Arrays.fill(ids, AdapterView.INVALID_ROW_ID);
+        onAction(listView, position, ids, direction);
+    }
+
+    /**
+     * SwipeActionTouchListener.ActionCallbacks callback
+     * We just link it through to our own interface
+     *
+     * @param listView The originating {@link ListView}.
+     * @param position The positions to perform the action on, sorted in descending  order
+     *                 for convenience.
+     * @param id The stable ids of the items, captured when they were swiped
+     * @param direction The type of swipe that triggered the action.
+     */
+    @Override
+    public void onAction(ListView listView, int[] position, long[] id, SwipeDirection[] direction){
+        if(mSwipeActionListener != null) mSwipeActionListener.onSwipe(position, id, direction);
+
+        if(mSwipeActionDispatcher != null) {
+            for(int i = 0; i < position.length; i++) {
+                mSwipeActionDispatcher.offer(position[i], id[i], direction[i]);
+            }
+        }
     }
 
     /**
@@ -117,6 +210,7 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
      */
     @Override
     public void onSwipeStarted(ListView listView, int position, SwipeDirection direction) {
+        if(mQualityMonitor != null) mQualityMonitor.start(mTouchListener.getAnimationDriver());
         if(mSwipeActionListener != null) mSwipeActionListener.onSwipeStarted(listView, position, direction);
     }
 
@@ -133,6 +227,38 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
         if(mSwipeActionListener != null) mSwipeActionListener.onSwipeEnded(listView, position, direction);
     }
 
+    /**
+     * Called at most once per frame while the user is swiping
+     *
+     * @param listView  The originating {@link ListView}.
+     * @param position  The position the user is swiping at
+     * @param direction The direction of the swipe
+     * @param fraction  How far the item has been swiped, as a fraction of its width
+     * @param pastNormal Whether the normal swipe fraction has been crossed
+     * @param pastFar   Whether the far swipe fraction has been crossed
+     */
+    @Override
+    public void onSwipeProgress(ListView listView, int position, SwipeDirection direction, float fraction, boolean pastNormal, boolean pastFar) {
+        if(mSwipeActionListener != null) mSwipeActionListener.onSwipeProgress(position, direction, fraction, pastNormal, pastFar);
+    }
+
+    /**
+     * Deliver the coalesced notifications before a row changes height, so the ListView never
+     * lays out with data it hasn't been told about
+     */
+    @Override
+    public void onBeforeRowLayout() {
+        flushNotifications();
+    }
+
+    /**
+     * Redraw the debug overlay, the animation and dismiss counts it shows have changed
+     */
+    @Override
+    public void onAnimationsChanged() {
+        if(mDebugOverlay != null) mDebugOverlay.invalidateSelf();
+    }
+
     /**
      * Set whether items should have a fadeOut animation
      *
@@ -142,7 +268,7 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
     @SuppressWarnings("unused")
     public SwipeActionAdapter setFadeOut(boolean mFadeOut){
         this.mFadeOut = mFadeOut;
-        if(mListView != null) mTouchListener.setFadeOut(mFadeOut);
+        if(mListView != null) applyQuality();
         return this;
     }
 
@@ -155,7 +281,7 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
     @SuppressWarnings("unused")
     public SwipeActionAdapter setFixedBackgrounds(boolean fixedBackgrounds){
         this.mFixedBackgrounds = fixedBackgrounds;
-        if(mListView != null) mTouchListener.setFixedBackgrounds(fixedBackgrounds);
+        if(mListView != null) applyQuality();
         return this;
     }
 
@@ -168,10 +294,50 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
     @SuppressWarnings("unused")
     public SwipeActionAdapter setDimBackgrounds(boolean dimBackgrounds){
         this.mDimBackgrounds = dimBackgrounds;
-        if(mListView != null) mTouchListener.setDimBackgrounds(dimBackgrounds);
+        if(mListView != null) applyQuality();
+        return this;
+    }
+
+    /**
+     * Set how the dim and fade effects are drawn
+     * The default value for this property is ALPHA: the alpha of the views is changed
+     *
+     * @param renderMode OVERLAY for a scrim and non-overlapping fades, ALPHA for the View alpha
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setRenderMode(RenderMode renderMode){
+        this.mRenderMode = renderMode;
+        updateVisibleRows();
+        return this;
+    }
+
+    /**
+     * Set the colour of the scrim drawn over dimmed backgrounds in OVERLAY mode
+     * The default value for this property is 60% white
+     *
+     * @param dimColor a translucent colour
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setDimColor(int dimColor){
+        this.mDimColor = dimColor;
+        updateVisibleRows();
         return this;
     }
 
+    /**
+     * Pass the render mode and dim colour to the rows on screen. Other rows get them in getView.
+     */
+    private void updateVisibleRows(){
+        if(mListView == null) return;
+        for(int i = 0; i < mListView.getChildCount(); i++) {
+            View child = mListView.getChildAt(i);
+            if(!(child instanceof SwipeViewGroup)) continue;
+            ((SwipeViewGroup) child).setRenderMode(mRenderMode).setDimColor(mDimColor);
+        }
+    }
+
     /**
      * Set the fraction of the View Width that needs to be swiped before it is counted as a far swipe
      *
@@ -203,22 +369,414 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
     }
 
     /**
-     * We need the ListView to be able to modify it's OnTouchListener
+     * Replace the clock and frame source of all swipe animations, for example with a
+     * {@link ManualAnimationDriver} to step through them synchronously in tests.
+     * Must be called while no animations are running.
+     *
+     * @param animationDriver the driver to use
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setAnimationDriver(SwipeAnimationDriver animationDriver){
+        this.mAnimationDriver = animationDriver;
+        if(mListView != null) mTouchListener.setAnimationDriver(animationDriver);
+        return this;
+    }
+
+    /**
+     * Set the duration of the swipe animations
+     * The default value for this property is the system's short animation time
+     *
+     * @param animationDuration the duration in milliseconds
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setAnimationDuration(long animationDuration){
+        if(animationDuration < 0) throw new IllegalArgumentException("Must be a positive duration");
+        this.mAnimationDuration = animationDuration;
+        if(mListView != null) applyQuality();
+        return this;
+    }
+
+    /**
+     * Draw a swiped row where the finger is expected to be this many milliseconds from now,
+     * instead of where it was at the last touch sample. This hides part of the input latency.
+     * The default value for this property is 0: no prediction
+     *
+     * @param millis the time to predict ahead in milliseconds, around one frame works well
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setTouchPrediction(long millis){
+        if(millis < 0) throw new IllegalArgumentException("Must be a positive duration");
+        this.mTouchPrediction = millis;
+        if(mListView != null) mTouchListener.setTouchPrediction(millis);
+        return this;
+    }
+
+    /**
+     * Let rows slide out or back after a swipe with a ViewPropertyAnimator that draws them from
+     * a hardware layer, so every frame of the slide is cheap. The slides still run on the UI
+     * thread: they do not keep moving while it is blocked, since Android has no public API to
+     * animate a View on the render thread. A touch stops a slide where the row is. Takes effect
+     * from Jelly Bean on hardware accelerated lists, and not with a custom animation driver.
+     * Collapsing rows are not affected.
+     * The default value for this property is false
+     *
+     * @param layerAnimations true to slide rows with a ViewPropertyAnimator on a hardware layer
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setLayerAnimations(boolean layerAnimations){
+        this.mLayerAnimations = layerAnimations;
+        if(mListView != null) mTouchListener.setLayerAnimations(layerAnimations);
+        return this;
+    }
+
+    /**
+     * Get the touch tracking statistics gathered since setListView was called
+     *
+     * @return a snapshot of the statistics, or null if no ListView is attached
+     */
+    @SuppressWarnings("unused")
+    public SwipeTouchStats getTouchStats(){
+        return mTouchListener != null ? mTouchListener.getTouchStats() : null;
+    }
+
+    /**
+     * Emit system trace sections for touch handling, row creation, the listener callbacks and
+     * the collapse animations (API 18 and up, async sections from API 29), so they show up in
+     * systrace and Perfetto. This applies to all adapters in the process.
+     * The default value for this property is false
+     *
+     * @param enabled true to emit trace sections
+     */
+    @SuppressWarnings("unused")
+    public static void setTracingEnabled(boolean enabled){
+        SwipeTrace.setEnabled(enabled);
+    }
+
+    /**
+     * Decide which directions every item can be swiped in from a mask, instead of asking
+     * {@link SwipeActionListener#hasActions(int, SwipeDirection)} during every gesture.
+     * The mask is indexed by positions in the wrapped adapter. Keep it up to date when the data
+     * changes: the mutation methods of this adapter shift it for you.
+     *
+     * @param mask the enabled directions of every item, or null to ask the SwipeActionListener
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setDirectionMask(SwipeDirectionMask mask){
+        mDirectionMask = mask;
+        return this;
+    }
+
+    /**
+     * @return the mask that decides which directions every item can be swiped in, or null
+     */
+    @SuppressWarnings("unused")
+    public SwipeDirectionMask getDirectionMask(){
+        return mDirectionMask;
+    }
+
+    /**
+     * Let getView skip rows that already show the current content of their item. A recycled
+     * row is only bound again if its item id or the version returned by the provider changed, so
+     * removing one item doesn't rebind every visible row. Requires stable ids.
+     * notifyDataSetInvalidated always rebinds all rows.
+     *
+     * @param provider the source of content versions, or null to always rebind
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setContentVersionProvider(ContentVersionProvider provider){
+        this.mContentVersionProvider = provider;
+        mBindGeneration++;
+        watchInvalidations(provider != null);
+        return this;
+    }
+
+    /**
+     * Also catch invalidations that go straight to the wrapped adapter, while rows can be skipped
+     */
+    private void watchInvalidations(boolean watch){
+        if(watch && mGenerationObserver == null) {
+            mGenerationObserver = new DataSetObserver() {
+                @Override
+                public void onInvalidated() {
+                    mBindGeneration++;
+                }
+            };
+            mBaseAdapter.registerDataSetObserver(mGenerationObserver);
+            // Invalidations could have been missed while nothing was watching
+            mBindGeneration++;
+        } else if(!watch && mGenerationObserver != null) {
+            mBaseAdapter.unregisterDataSetObserver(mGenerationObserver);
+            mGenerationObserver = null;
+        }
+    }
+
+    /**
+     * Coalesced notifications follow the frames of the swipe animations, so a
+     * {@link ManualAnimationDriver} delivers them too
+     */
+    @Override
+    protected SwipeAnimationDriver getFrameDriver(){
+        if(mTouchListener != null) return mTouchListener.getAnimationDriver();
+        if(mAnimationDriver != null) return mAnimationDriver;
+        return super.getFrameDriver();
+    }
+
+    /**
+     * Watch the frame times during swipes and dismiss animations, and turn off expensive effects
+     * step by step when frames are missed: first the fade out, then the dimming, then the swipe
+     * in backgrounds and finally half of the animation time. The effects come back one by one
+     * once frames are healthy again. A new step is applied once no item is being swiped or
+     * animated.
+     * The default value for this property is false
+     *
+     * @param adaptiveQuality true to adapt the effects to the frame rate
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setAdaptiveQuality(boolean adaptiveQuality){
+        if(adaptiveQuality && mQualityMonitor == null) {
+            mQualityMonitor = new AdaptiveQualityMonitor(new AdaptiveQualityMonitor.Host() {
+                @Override
+                public boolean isBusy() {
+                    return mTouchListener != null && mTouchListener.isBusy();
+                }
+
+                @Override
+                public void onQualityChanged(SwipeQuality quality, boolean degraded) {
+                    if(mListView != null) applyQuality();
+                    if(mOnQualityChangedListener != null) mOnQualityChangedListener.onQualityChanged(quality, degraded);
+                }
+            });
+        } else if(!adaptiveQuality && mQualityMonitor != null) {
+            mQualityMonitor.reset();
+            mQualityMonitor = null;
+        }
+        if(mListView != null) applyQuality();
+        return this;
+    }
+
+    /**
+     * Set a listener that is told when the adaptive quality mode turns effects off or on
+     *
+     * @param listener the listener, or null
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setOnQualityChangedListener(OnQualityChangedListener listener){
+        this.mOnQualityChangedListener = listener;
+        return this;
+    }
+
+    /**
+     * @return the current quality of the swipe effects, always FULL if adaptive quality is off
+     */
+    @SuppressWarnings("unused")
+    public SwipeQuality getQuality(){
+        return mQualityMonitor != null ? mQualityMonitor.getQuality() : SwipeQuality.FULL;
+    }
+
+    /**
+     * Pass the configured effects to the touch listener, minus the ones the current quality sheds
+     */
+    private void applyQuality(){
+        SwipeQuality quality = getQuality();
+        mTouchListener.setFadeOut(mFadeOut && quality.compareTo(SwipeQuality.NO_FADE) < 0);
+        mTouchListener.setDimBackgrounds(mDimBackgrounds && quality.compareTo(SwipeQuality.NO_DIM) < 0);
+        mTouchListener.setFixedBackgrounds(mFixedBackgrounds || quality.compareTo(SwipeQuality.FIXED_BACKGROUNDS) >= 0);
+        long animationTime = mAnimationDuration >= 0 ? mAnimationDuration : mDefaultAnimationTime;
+        if(quality.compareTo(SwipeQuality.SHORT_ANIMATIONS) >= 0) animationTime /= 2;
+        mTouchListener.setAnimationTime(animationTime);
+    }
+
+    /**
+     * Show how much the swipe rows cost in an overlay on top of the ListView (API 18 and up).
+     * The same numbers are available on all API levels through {@link #getDebugReport()}.
+     * The default value for this property is false
+     *
+     * @param debugMode true to show the overlay
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setDebugMode(boolean debugMode){
+        this.mDebugMode = debugMode;
+        if(mListView != null) updateDebugOverlay();
+        return this;
+    }
+
+    /**
+     * Measure the rows that are currently on screen, and the state of the swipe animations
+     *
+     * @return a snapshot of the swipe rows
+     */
+    @SuppressWarnings("unused")
+    public SwipeDebugReport getDebugReport(){
+        int inflatedBackgrounds = mInflatedBackgrounds;
+        if(mBackgroundInflater != null) inflatedBackgrounds += mBackgroundInflater.getInflatedCount();
+        return SwipeDebugReport.collect(mListView, mTouchListener, inflatedBackgrounds, mWrappersCreated,
+                mWrappersPooled, mWrappersRecycled);
+    }
+
+    /**
+     * Write the debug report to logcat
+     */
+    @SuppressWarnings("unused")
+    public void dumpDebugReport(){
+        Log.d("SwipeActionAdapter", getDebugReport().toString());
+    }
+
+    private void updateDebugOverlay(){
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) return;
+        if(mDebugOverlay != null) {
+            mListView.getOverlay().remove(mDebugOverlay);
+            mDebugOverlay = null;
+        }
+        if(mDebugMode) {
+            mDebugOverlay = new SwipeDebugOverlay(this, mListView.getResources().getDisplayMetrics().density);
+            // The report is drawn from the top left corner, it does not need exact bounds
+            mDebugOverlay.setBounds(0, 0, Integer.MAX_VALUE, Integer.MAX_VALUE);
+            mListView.getOverlay().add(mDebugOverlay);
+        }
+    }
+
+    /**
+     * We need the ListView to be able to modify it's OnTouchListener.
+     * Calling it again moves the adapter to another ListView: the actions that were already
+     * decided on the old one are delivered first, and the old ListView is no longer watched.
      *
      * @param listView the ListView to which the adapter will be attached
      * @return A reference to the current instance so that commands can be chained
      */
     public SwipeActionAdapter setListView(ListView listView){
+        if(mDebugOverlay != null) {
+            mListView.getOverlay().remove(mDebugOverlay);
+            mDebugOverlay = null;
+        }
+        if(mTouchListener != null) {
+            // Deliver what the old ListView already decided, and stop listening to it
+            mTouchListener.cancelAnimations(true);
+            mTouchListener.release();
+            if(mListView != listView) {
+                mListView.setOnTouchListener(null);
+                mListView.setOnScrollListener(null);
+                for(int i = 0; i < mListView.getChildCount(); i++) {
+                    View child = mListView.getChildAt(i);
+                    if(child instanceof SwipeViewGroup) ((SwipeViewGroup) child).setSwipeTouchListener(null);
+                }
+            }
+        }
         this.mListView = listView;
+        watchInvalidations(mContentVersionProvider != null);
         mTouchListener = new SwipeActionTouchListener(listView,this);
         this.mListView.setOnTouchListener(mTouchListener);
         this.mListView.setOnScrollListener(mTouchListener.makeScrollListener());
-        this.mListView.setClipChildren(false);
-        mTouchListener.setFadeOut(mFadeOut);
-        mTouchListener.setDimBackgrounds(mDimBackgrounds);
-        mTouchListener.setFixedBackgrounds(mFixedBackgrounds);
         mTouchListener.setNormalSwipeFraction(mNormalSwipeFraction);
         mTouchListener.setFarSwipeFraction(mFarSwipeFraction);
+        if(mAnimationDriver != null) mTouchListener.setAnimationDriver(mAnimationDriver);
+        mDefaultAnimationTime = mTouchListener.getAnimationTime();
+        applyQuality();
+        mTouchListener.setTouchPrediction(mTouchPrediction);
+        mTouchListener.setLayerAnimations(mLayerAnimations);
+        updateDebugOverlay();
+        return this;
+    }
+
+    /**
+     * Dismiss a set of items from code, as if the user swiped them away.
+     * All visible items are animated together in a single collapse, items that are not on screen
+     * are not animated. The SwipeActionListener receives all positions in one onSwipe batch once
+     * the animation has finished. shouldDismiss is not consulted. Every position is dismissed
+     * once, even if it occurs more than once in the array.
+     *
+     * @param positions the positions of the items to dismiss
+     * @param direction the direction the items should be dismissed in
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter dismiss(int[] positions, SwipeDirection direction){
+        if(mListView == null) throw new IllegalStateException("Call setListView() before dismissing items");
+        if(direction == SwipeDirection.DIRECTION_NEUTRAL) {
+            throw new IllegalArgumentException("Items can not be dismissed in the neutral direction");
+        }
+        mTouchListener.dismiss(positions, direction);
+        if(mQualityMonitor != null) mQualityMonitor.start(mTouchListener.getAnimationDriver());
+        return this;
+    }
+
+    /**
+     * Cancel all running swipe animations and deliver the actions that were already decided.
+     * Call this from the onStop callback of your Activity or Fragment, or use
+     * {@link #bindLifecycle(Activity)}.
+     */
+    public void onStop(){
+        if(mQualityMonitor != null) mQualityMonitor.stop();
+        if(mTouchListener != null) mTouchListener.cancelAnimations(true);
+    }
+
+    /**
+     * Cancel all running swipe animations, drop pending actions and release all references to
+     * the ListView and its rows. Call this from the onDestroy callback of your Activity or
+     * Fragment, or use {@link #bindLifecycle(Activity)}.
+     * Call setListView again if you want to reuse the adapter.
+     */
+    public void onDestroy(){
+        if(mQualityMonitor != null) mQualityMonitor.stop();
+        if(mListView != null) {
+            mListView.setOnTouchListener(null);
+            mListView.setOnScrollListener(null);
+            if(mDebugOverlay != null) mListView.getOverlay().remove(mDebugOverlay);
+        }
+        mDebugOverlay = null;
+        if(mBackgroundInflater != null) mBackgroundInflater.invalidate();
+        if(mTouchListener != null) mTouchListener.release();
+        mTouchListener = null;
+        mListView = null;
+        // The wrapped adapter can outlive this one: don't leave an observer behind
+        watchInvalidations(false);
+    }
+
+    /**
+     * Call onStop and onDestroy automatically when the given Activity stops or is destroyed
+     *
+     * @param activity the Activity hosting the ListView
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter bindLifecycle(final Activity activity){
+        final Application application = activity.getApplication();
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStopped(Activity stopped) {
+                if(stopped == activity) onStop();
+            }
+
+            @Override
+            public void onActivityDestroyed(Activity destroyed) {
+                if(destroyed != activity) return;
+                onDestroy();
+                application.unregisterActivityLifecycleCallbacks(this);
+            }
+
+            @Override
+            public void onActivityCreated(Activity created, Bundle savedInstanceState) {}
+
+            @Override
+            public void onActivityStarted(Activity started) {}
+
+            @Override
+            public void onActivityResumed(Activity resumed) {}
+
+            @Override
+            public void onActivityPaused(Activity paused) {}
+
+            @Override
+            public void onActivitySaveInstanceState(Activity saved, Bundle outState) {}
+        });
         return this;
     }
 
@@ -232,6 +790,13 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
         return mListView;
     }
 
+    /**
+     * @return the touch listener that was installed on the ListView, null before setListView
+     */
+    SwipeActionTouchListener getTouchListener(){
+        return mTouchListener;
+    }
+
     /**
      * Add a background image for a certain callback. The key for the background must be one of the
      * directions from the SwipeDirections class.
@@ -242,6 +807,7 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
      */
     public SwipeActionAdapter addBackground(SwipeDirection key, int resId){
         if(SwipeDirection.getAllDirections().contains(key)) mBackgroundResIds.put(key,resId);
+        if(mBackgroundInflater != null) mBackgroundInflater.invalidate();
         return this;
     }
 
@@ -256,6 +822,171 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
         return this;
     }
 
+    /**
+     * Set a dispatcher that hands completed swipe actions off to a background thread.
+     * The SwipeActionListener is still called on the UI thread before the actions are queued.
+     * Actions are queued from the UI thread, so the dispatcher must not use the CALLER_RUNS or
+     * BLOCK backpressure.
+     *
+     * @param swipeActionDispatcher the dispatcher to use, or null to disable background dispatch
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setSwipeActionDispatcher(SwipeActionDispatcher swipeActionDispatcher){
+        if(swipeActionDispatcher != null
+                && swipeActionDispatcher.getBackpressure() != SwipeActionDispatcher.Backpressure.OVERFLOW
+                && swipeActionDispatcher.getBackpressure() != SwipeActionDispatcher.Backpressure.DROP) {
+            throw new IllegalArgumentException("The dispatcher would run or wait on the UI thread, use OVERFLOW or DROP");
+        }
+        this.mSwipeActionDispatcher = swipeActionDispatcher;
+        return this;
+    }
+
+    /**
+     * Inflate the backgrounds of new rows on the given executor instead of in getView.
+     * New rows show nothing behind their content until their backgrounds are inflated, and load
+     * them on the main thread if they are swiped before that. Layouts that can't be inflated off
+     * the main thread, or that the executor rejects, are inflated on the main thread instead.
+     *
+     * @param executor the executor to inflate on, or null to inflate in getView
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter setAsyncInflation(Executor executor){
+        if(mBackgroundInflater != null) {
+            mBackgroundInflater.invalidate();
+            mInflatedBackgrounds += mBackgroundInflater.getInflatedCount();
+        }
+        mBackgroundInflater = executor != null ? new BackgroundInflater(executor) : null;
+        return this;
+    }
+
+    /**
+     * Build rows with all their backgrounds on the executor of setAsyncInflation, so the ListView
+     * can take a complete row when it needs a new one. Call after setListView, e.g. with the
+     * amount of rows that fit on the screen.
+     *
+     * @param count the amount of rows to keep ready
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionAdapter prebuildRows(int count){
+        if(mBackgroundInflater == null || mListView == null) return this;
+        mBackgroundInflater.prebuildRows(mListView.getContext(), mBackgroundResIds, count);
+        return this;
+    }
+
+    /**
+     * Insert items into the data of the wrapped adapter, from any thread.
+     * The change is queued and applied on the UI thread once no row is being swiped or
+     * collapsed, together with all other changes that are queued by then, followed by a single
+     * notifyDataSetChanged. Actions that wait for their animations move along with their items.
+     * Use stable ids to keep rows that are sliding out attached to their items.
+     *
+     * @param position The position of the first new item in the wrapped adapter
+     * @param count The amount of new items
+     * @param change Inserts the items into the data, without notifying. Runs on the UI thread.
+     */
+    @AnyThread
+    @SuppressWarnings("unused")
+    public void insertItems(int position, int count, Runnable change){
+        getMutationQueue().offer(MutationQueue.INSERT, position, count, change);
+    }
+
+    /**
+     * Remove items from the data of the wrapped adapter, from any thread. The change is applied
+     * like {@link #insertItems(int, int, Runnable)}. Actions that wait for the animation of a
+     * removed item are reported with {@link ListView#INVALID_POSITION}.
+     *
+     * @param position The position of the first removed item in the wrapped adapter
+     * @param count The amount of removed items
+     * @param change Removes the items from the data, without notifying. Runs on the UI thread.
+     */
+    @AnyThread
+    @SuppressWarnings("unused")
+    public void removeItems(int position, int count, Runnable change){
+        getMutationQueue().offer(MutationQueue.REMOVE, position, count, change);
+    }
+
+    /**
+     * Change items in the data of the wrapped adapter, from any thread. The change is applied
+     * like {@link #insertItems(int, int, Runnable)}.
+     *
+     * @param position The position of the first changed item in the wrapped adapter
+     * @param count The amount of changed items
+     * @param change Changes the items in the data, without notifying. Runs on the UI thread.
+     */
+    @AnyThread
+    @SuppressWarnings("unused")
+    public void updateItems(int position, int count, Runnable change){
+        getMutationQueue().offer(MutationQueue.UPDATE, position, count, change);
+    }
+
+    private synchronized MutationQueue getMutationQueue(){
+        if(mMutationQueue != null) return mMutationQueue;
+        mMutationQueue = new MutationQueue(new MutationQueue.Host() {
+            @Override
+            public boolean isSafeToMutate() {
+                return mTouchListener == null || mTouchListener.isSafeToMutate();
+            }
+
+            @Override
+            public void applyMutation(int type, int sourcePosition, int count, Runnable change) {
+                // Measure the visible range before the remapping layer forgets the hidden items
+                int position = toVisibleBoundary(sourcePosition);
+                int removed = type == MutationQueue.REMOVE ? toVisibleBoundary(sourcePosition + count) - position : 0;
+                // Shift the mask first, so the change can set the directions of new items
+                if(mDirectionMask != null && type == MutationQueue.INSERT) mDirectionMask.insert(sourcePosition, count);
+                else if(mDirectionMask != null && type == MutationQueue.REMOVE) mDirectionMask.remove(sourcePosition, count);
+                change.run();
+                if(type == MutationQueue.INSERT) onSourceInserted(sourcePosition, count);
+                else if(type == MutationQueue.REMOVE) onSourceRemoved(sourcePosition, count);
+                if(mTouchListener != null && type != MutationQueue.UPDATE) {
+                    mTouchListener.remapPendingPositions(position, removed, type == MutationQueue.INSERT ? count : 0);
+                }
+            }
+
+            @Override
+            public void onMutationsApplied() {
+                // The data has already changed: the ListView must not lay out before it knows
+                notifyDataSetChanged();
+                flushNotifications();
+            }
+
+            @Override
+            public SwipeAnimationDriver getFrameDriver() {
+                return SwipeActionAdapter.this.getFrameDriver();
+            }
+        });
+        return mMutationQueue;
+    }
+
+    /**
+     * Interface that tells the adapter when the content of an item changes
+     */
+    public interface ContentVersionProvider{
+        /**
+         * Return a value that changes whenever the row of the item would look different, for
+         * example a modification counter or a hash of the displayed fields. If the row also
+         * depends on its position, make the position part of the version.
+         *
+         * @param position The position of the item, as passed to getView
+         * @return The version of the content of the item
+         */
+        long getContentVersion(int position);
+    }
+
+    /**
+     * Interface to be told about changes made by the adaptive quality mode
+     */
+    public interface OnQualityChangedListener{
+        /**
+         * @param quality The new quality
+         * @param degraded true if effects were turned off, false if they were turned back on
+         */
+        void onQualityChanged(SwipeQuality quality, boolean degraded);
+    }
+
     /**
      * Interface that listeners of swipe events should implement
      */
@@ -263,9 +994,32 @@ public class SwipeActionAdapter extends DecoratorAdapter implements
         boolean hasActions(int position, SwipeDirection direction);
         boolean shouldDismiss(int position, SwipeDirection direction);
         void onSwipe(int[] position, SwipeDirection[] direction);
+        /**
+         * Variant of onSwipe that also receives the stable ids of the swiped items. The ids are
+         * captured when the item is swiped and the positions are resolved against the current
+         * data, so the data can be changed while the animations are running.
+         * Items that no longer exist have position {@link ListView#INVALID_POSITION}.
+         * Ids are {@link ListView#INVALID_ROW_ID} if the adapter does not have stable ids.
+         */
+        @SuppressWarnings("unused")
+        default void onSwipe(int[] position, long[] id, SwipeDirection[] direction) {
+            onSwipe(position, direction);
+        }
         @SuppressWarnings("unused")
         default void onSwipeStarted(ListView listView, int position, SwipeDirection direction) {};
         @SuppressWarnings("unused")
         default void onSwipeEnded(ListView listView, int position, SwipeDirection direction) {};
+        /**
+         * Called at most once per frame while the user is swiping an item, for example to
+         * animate an icon in the background as a threshold comes near.
+         *
+         * @param position The position of the item being swiped
+         * @param direction The direction of the swipe
+         * @param fraction How far the item has been swiped, as a fraction of its width
+         * @param pastNormal true if the item was swiped beyond the normal swipe fraction
+         * @param pastFar true if the item was swiped beyond the far swipe fraction
+         */
+        @SuppressWarnings("unused")
+        default void onSwipeProgress(int position, SwipeDirection direction, float fraction, boolean pastNormal, boolean pastFar) {};
     }
 }
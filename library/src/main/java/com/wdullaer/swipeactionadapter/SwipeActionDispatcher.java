@@ -0,0 +1,288 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.WorkerThread;
+import android.util.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands completed swipe actions off to a background {@link Executor}.
+ *
+ * Actions are pushed into a bounded single-producer/single-consumer ring buffer by the UI thread
+ * and drained by at most one task on the executor at a time. Whatever the handler returns is
+ * posted back to the main thread, so only the UI-affecting part of an action runs there.
+ *
+ * The adapter offers actions from the main thread, so it only accepts the OVERFLOW and DROP
+ * backpressure modes: CALLER_RUNS would run the handler on the main thread and BLOCK would park it.
+ *
+ * If the executor rejects the drain, e.g. because it was shut down, the queued actions are
+ * dropped and counted in {@link #getDroppedCount()}. The rejection never reaches the caller.
+ */
+public class SwipeActionDispatcher {
+    private static final String TAG = "SwipeActionDispatcher";
+    private static final int DEFAULT_CAPACITY = 64;
+    private static final long BLOCK_PARK_NANOS = 50000;
+
+    /**
+     * What to do when the UI thread offers an action while the queue is full
+     */
+    public enum Backpressure {
+        /**
+         * Queue the new action in an unbounded overflow list that is drained after the ring.
+         * The producer never waits and the actions keep their order.
+         */
+        OVERFLOW,
+        /** Discard the new action. Dropped actions are counted in {@link #getDroppedCount()} */
+        DROP,
+        /**
+         * Run the handler synchronously on the calling thread, ahead of the actions that are
+         * still queued. Must not be used from the main thread.
+         */
+        CALLER_RUNS,
+        /** Park the calling thread until the consumer frees up a slot. Must not be used from the main thread. */
+        BLOCK
+    }
+
+    /**
+     * Interface that handlers of background swipe actions should implement
+     */
+    public interface BackgroundActionHandler {
+        /**
+         * Called on the executor for every completed swipe action, in the order they were offered
+         *
+         * @param position The position of the item at the time the action completed
+         * @param id The stable id of the item, or {@link android.widget.AdapterView#INVALID_ROW_ID}
+         *           if the adapter does not have stable ids
+         * @param direction The type of swipe that triggered the action
+         * @return A Runnable that will be posted to the main thread, or null if there is no UI work
+         */
+        @WorkerThread
+        @Nullable
+        Runnable onBackgroundAction(int position, long id, SwipeDirection direction);
+    }
+
+    private final Executor mExecutor;
+    private final BackgroundActionHandler mHandler;
+    private final Backpressure mBackpressure;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    // Ring buffer: slots are written by the producer before mTail is published and cleared by
+    // the consumer before mHead is published
+    private final int mMask;
+    private final int[] mPositions;
+    private final long[] mIds;
+    private final SwipeDirection[] mDirections;
+    private final AtomicLong mHead = new AtomicLong();
+    private final AtomicLong mTail = new AtomicLong();
+    private final AtomicBoolean mDraining = new AtomicBoolean();
+    // Actions that did not fit in the ring, in OVERFLOW mode. Once it holds an action, new actions
+    // are added here as well until the consumer has emptied it, so the order is kept.
+    private final ConcurrentLinkedQueue<PendingAction> mOverflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger mDroppedCount = new AtomicInteger();
+
+    private static final class PendingAction {
+        final int position;
+        final long id;
+        final SwipeDirection direction;
+
+        PendingAction(int position, long id, SwipeDirection direction) {
+            this.position = position;
+            this.id = id;
+            this.direction = direction;
+        }
+    }
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    /**
+     * Creates a dispatcher with room for 64 pending actions in its ring, that queues further
+     * actions in an overflow list when the ring is full
+     *
+     * @param executor The executor that will run the handler
+     * @param handler The handler of the swipe actions
+     */
+    @SuppressWarnings("unused")
+    public SwipeActionDispatcher(@NonNull Executor executor, @NonNull BackgroundActionHandler handler) {
+        this(executor, DEFAULT_CAPACITY, Backpressure.OVERFLOW, handler);
+    }
+
+    /**
+     * Creates a dispatcher
+     *
+     * @param executor The executor that will run the handler
+     * @param capacity The amount of actions that can be pending, rounded up to a power of two
+     * @param backpressure What to do when the queue is full
+     * @param handler The handler of the swipe actions
+     */
+    public SwipeActionDispatcher(@NonNull Executor executor, int capacity,
+                                 @NonNull Backpressure backpressure,
+                                 @NonNull BackgroundActionHandler handler) {
+        if(capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        int size = Integer.highestOneBit(capacity);
+        if(size < capacity) size <<= 1;
+        mMask = size - 1;
+        mPositions = new int[size];
+        mIds = new long[size];
+        mDirections = new SwipeDirection[size];
+        mExecutor = executor;
+        mBackpressure = backpressure;
+        mHandler = handler;
+    }
+
+    /**
+     * @return what the dispatcher does when its queue is full
+     */
+    public Backpressure getBackpressure() {
+        return mBackpressure;
+    }
+
+    /**
+     * Queue a completed swipe action. Must always be called from the same thread, the adapter
+     * calls it from the main thread.
+     *
+     * @param position The position of the swiped item
+     * @param id The stable id of the swiped item
+     * @param direction The type of swipe that triggered the action
+     * @return false if the action was dropped because the queue was full or the executor
+     *         rejected it
+     */
+    public boolean offer(int position, long id, SwipeDirection direction) {
+        if(!mOverflow.isEmpty()) {
+            // Older actions are still waiting in the overflow list: queue behind them
+            mOverflow.add(new PendingAction(position, id, direction));
+            return scheduleDrain();
+        }
+        final long tail = mTail.get();
+        while(tail - mHead.get() > mMask) {
+            switch(mBackpressure) {
+                case OVERFLOW:
+                    mOverflow.add(new PendingAction(position, id, direction));
+                    return scheduleDrain();
+                case DROP:
+                    mDroppedCount.incrementAndGet();
+                    return false;
+                case CALLER_RUNS:
+                    Runnable uiAction = mHandler.onBackgroundAction(position, id, direction);
+                    if(uiAction != null) uiAction.run();
+                    return true;
+                case BLOCK:
+                    if(!scheduleDrain()) continue;
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    break;
+            }
+        }
+
+        int slot = (int) (tail & mMask);
+        mPositions[slot] = position;
+        mIds[slot] = id;
+        mDirections[slot] = direction;
+        mTail.lazySet(tail + 1);
+        return scheduleDrain();
+    }
+
+    /**
+     * Returns the amount of actions that were discarded because the queue was full or the
+     * executor rejected them
+     *
+     * @return the number of dropped actions
+     */
+    @SuppressWarnings("unused")
+    public int getDroppedCount() {
+        return mDroppedCount.get();
+    }
+
+    /**
+     * Make sure a task drains the queue
+     *
+     * @return false if the executor rejected the task and the queued actions were dropped
+     */
+    private boolean scheduleDrain() {
+        if(!mDraining.compareAndSet(false, true)) return true;
+        try {
+            mExecutor.execute(mDrainTask);
+            return true;
+        } catch(RejectedExecutionException e) {
+            Log.w(TAG, "Executor rejected the swipe actions, dropping them", e);
+        }
+        // Nothing else consumes the queue while we hold the flag
+        int dropped = 0;
+        long tail = mTail.get();
+        for(long head = mHead.get(); head < tail; head++) {
+            mDirections[(int) (head & mMask)] = null;
+            dropped++;
+        }
+        mHead.lazySet(tail);
+        while(mOverflow.poll() != null) dropped++;
+        mDroppedCount.addAndGet(dropped);
+        mDraining.set(false);
+        // An action published in the meantime was not dropped: try the executor again for it
+        if(mHead.get() != mTail.get() || !mOverflow.isEmpty()) scheduleDrain();
+        return false;
+    }
+
+    @WorkerThread
+    private void drain() {
+        try {
+            long head = mHead.get();
+            while(true) {
+                // The ring only holds actions that are newer than the overflow list while that
+                // list is empty, so taking the ring first keeps the order
+                if(head < mTail.get()) {
+                    int slot = (int) (head & mMask);
+                    int position = mPositions[slot];
+                    long id = mIds[slot];
+                    SwipeDirection direction = mDirections[slot];
+                    mDirections[slot] = null;
+                    mHead.lazySet(++head);
+                    handle(position, id, direction);
+                    continue;
+                }
+                PendingAction action = mOverflow.poll();
+                if(action == null) break;
+                handle(action.position, action.id, action.direction);
+            }
+        } finally {
+            mDraining.set(false);
+        }
+        // The producer may have published an action after our last check, but before the flag
+        // was cleared: in that case its scheduleDrain() was a no-op and we need to go again
+        if(mHead.get() != mTail.get() || !mOverflow.isEmpty()) scheduleDrain();
+    }
+
+    @WorkerThread
+    private void handle(int position, long id, SwipeDirection direction) {
+        Runnable uiAction = mHandler.onBackgroundAction(position, id, direction);
+        if(uiAction != null) mMainHandler.post(uiAction);
+    }
+}
@@ -17,22 +17,21 @@
 
 package com.wdullaer.swipeactionadapter;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.graphics.Rect;
-import android.os.SystemClock;
+import android.os.Build;
 import android.support.annotation.NonNull;
+import android.util.Log;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
 import android.view.ViewGroup;
-import android.view.ViewPropertyAnimator;
 import android.widget.AbsListView;
+import android.widget.AdapterView;
+import android.widget.ListAdapter;
 import android.widget.ListView;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -67,40 +66,84 @@ import java.util.List;
  * listView.setOnScrollListener(touchListener.makeScrollListener());
  * </pre>
  *
- * <p>This class Requires API level 12 or later due to use of {@link
- * ViewPropertyAnimator}.</p>
+ * <p>All animations run on a {@link SwipeAnimationDriver}, which can be replaced to step
+ * through them synchronously in tests.</p>
  */
 public class SwipeActionTouchListener implements View.OnTouchListener {
+    private static final String TAG = "SwipeActionTouchListener";
+
     // Cached ViewConfiguration and system-wide constant values
-    private int mSlop;
-    private int mMinFlingVelocity;
-    private int mMaxFlingVelocity;
     private long mAnimationTime;
 
+    // Kinds of row animations
+    private static final int ANIMATION_COLLAPSE = 0;
+    private static final int ANIMATION_SLIDE_OUT = 1;
+    private static final int ANIMATION_SLIDE_BACK = 2;
+    private static final int ANIMATION_RESET = 3;
+    // Handle of an animation that does not run on the driver
+    private static final int NO_HANDLE = -1;
+
     // Fixed properties
+    private SwipeAnimationDriver mDriver = new PlatformAnimationDriver();
     private ListView mListView;
     private ActionCallbacks mCallbacks;
     private int mViewWidth = 1; // 1 and not 0 to prevent dividing by zero
+    // Distance in pixels at which a fading row is fully transparent
+    private int mFadeDistance = 1;
     private boolean mFadeOut = false;
     private boolean mFixedBackgrounds = false;
     private boolean mDimBackgrounds = false;
-    private float mNormalSwipeFraction = 0.25f;
-    private float mFarSwipeFraction = 0.5f;
+    private long mTouchPrediction = 0;
+    private boolean mLayerAnimations = false;
 
     // Transient properties
     private List<PendingDismissData> mPendingDismisses = new ArrayList<>();
+    private final StableIdIndex mStableIdIndex = new StableIdIndex();
+    private List<RowAnimation> mRunningAnimations = new ArrayList<>();
     private int mDismissAnimationRefCount = 0;
-    private float mDownX;
-    private float mDownY;
-    private boolean mSwiping;
-    private int mSwipingSlop;
-    private VelocityTracker mVelocityTracker;
+    private int mUnbalancedDismissCount = 0;
+    private boolean mReleased = false;
+    private boolean mListUnclipped = false;
+    private final SwipeGestureRecognizer mRecognizer = new SwipeGestureRecognizer();
     private int mDownPosition;
+    private long mDownId;
     private View mDownView;
     private SwipeViewGroup mDownViewGroup;
     private boolean mPaused;
-    private SwipeDirection mDirection = SwipeDirection.DIRECTION_NEUTRAL;
-    private boolean mFar;
+    private float mLastSampleX;
+    private long mLastSampleTime;
+    private float mPredictedX;
+    private long mPredictedTime;
+
+    // Latest swipe progress, delivered on the next frame
+    private boolean mProgressPosted;
+    private int mProgressPosition;
+    private SwipeDirection mProgressDirection;
+    private float mProgressFraction;
+    private boolean mProgressPastNormal;
+    private boolean mProgressPastFar;
+    private final View.OnLayoutChangeListener mLayoutChangeListener = new View.OnLayoutChangeListener() {
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom,
+                                   int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            if (right - left != oldRight - oldLeft) setViewWidth(right - left);
+        }
+    };
+    private final SwipeAnimationDriver.FrameCallback mProgressCallback = new SwipeAnimationDriver.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mProgressPosted = false;
+            mCallbacks.onSwipeProgress(mListView, mProgressPosition, mProgressDirection,
+                    mProgressFraction, mProgressPastNormal, mProgressPastFar);
+        }
+    };
+
+    // Touch tracking statistics
+    private long mSampleCount;
+    private long mSwipeCount;
+    private long mRecognitionDelay;
+    private long mPredictionCount;
+    private double mPredictionError;
 
     /**
      * The callback interface used by {@link SwipeActionTouchListener} to inform its client
@@ -140,6 +183,23 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
          */
         void onAction(ListView listView, int[] position, SwipeDirection[] direction);
 
+        /**
+         * Called after the dismiss or reappear animation of a swiped item has finished.
+         * If the adapter has stable ids, the ids are captured at the time of the swipe and the
+         * positions are resolved against the current data. Items that no longer exist are
+         * reported with {@link ListView#INVALID_POSITION}, at the end of the array.
+         *
+         * @param listView The originating {@link ListView}.
+         * @param position The position to perform the action on, sorted in descending  order
+         *                 for convenience.
+         * @param id The stable ids of the items, or {@link ListView#INVALID_ROW_ID} if the
+         *           adapter does not have stable ids
+         * @param direction The type of swipe that triggered the action
+         */
+        default void onAction(ListView listView, int[] position, long[] id, SwipeDirection[] direction) {
+            onAction(listView, position, direction);
+        }
+
         /**
          * Called once the user touches the screen and starts swiping in any direction
          *
@@ -157,6 +217,29 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
          * @param direction The type of swipe that triggered the action
          */
         void onSwipeEnded(ListView listView, int position, SwipeDirection direction);
+
+        /**
+         * Called at most once per frame while the user is swiping
+         *
+         * @param listView The originating {@link ListView}.
+         * @param position The position the user is swiping at
+         * @param direction The direction of the swipe
+         * @param fraction How far the item has been swiped, as a fraction of its width
+         * @param pastNormal Whether the normal swipe fraction has been crossed
+         * @param pastFar Whether the far swipe fraction has been crossed
+         */
+        default void onSwipeProgress(ListView listView, int position, SwipeDirection direction, float fraction, boolean pastNormal, boolean pastFar) {}
+
+        /**
+         * Called right before the listener changes the height of a row, which makes the
+         * ListView lay out. Any change to the data must have been notified by then.
+         */
+        default void onBeforeRowLayout() {}
+
+        /**
+         * Called when a row animation starts or ends, and after the pending actions were flushed
+         */
+        default void onAnimationsChanged() {}
     }
 
     /**
@@ -168,13 +251,14 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
      */
     public SwipeActionTouchListener(ListView listView, ActionCallbacks callbacks) {
         ViewConfiguration vc = ViewConfiguration.get(listView.getContext());
-        mSlop = vc.getScaledTouchSlop();
-        mMinFlingVelocity = vc.getScaledMinimumFlingVelocity() * 16;
-        mMaxFlingVelocity = vc.getScaledMaximumFlingVelocity();
+        mRecognizer.setTouchSlop(vc.getScaledTouchSlop())
+                .setFlingVelocity(vc.getScaledMinimumFlingVelocity() * 16, vc.getScaledMaximumFlingVelocity());
         mAnimationTime = listView.getContext().getResources().getInteger(
                 android.R.integer.config_shortAnimTime);
         mListView = listView;
         mCallbacks = callbacks;
+        setViewWidth(listView.getWidth());
+        listView.addOnLayoutChangeListener(mLayoutChangeListener);
     }
 
     /**
@@ -208,6 +292,81 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
         };
     }
 
+    /**
+     * Set the driver that provides the clock and frames for all animations
+     *
+     * @param driver the driver to use
+     */
+    protected void setAnimationDriver(@NonNull SwipeAnimationDriver driver){
+        if (mProgressPosted) {
+            mDriver.removeFrameCallback(mProgressCallback);
+            driver.postFrameCallback(mProgressCallback);
+        }
+        mDriver = driver;
+    }
+
+    /**
+     * @return the driver that provides the clock and frames for all animations
+     */
+    SwipeAnimationDriver getAnimationDriver(){
+        return mDriver;
+    }
+
+    /**
+     * @return the duration of a single animation phase in milliseconds
+     */
+    long getAnimationTime(){
+        return mAnimationTime;
+    }
+
+    /**
+     * @return true while a gesture is being tracked or a row is animating
+     */
+    boolean isBusy(){
+        return mRecognizer.isTracking() || !mRunningAnimations.isEmpty();
+    }
+
+    /**
+     * Set the duration of a single animation phase. The default is the system's short animation time
+     *
+     * @param animationTime the duration in milliseconds
+     */
+    protected void setAnimationTime(long animationTime){
+        mAnimationTime = animationTime;
+    }
+
+    /**
+     * Extrapolate the position of a swiped row this far ahead of the last touch sample, to make
+     * up for the time it takes to get a frame on the screen. 0 disables prediction.
+     *
+     * @param millis the time to predict ahead in milliseconds
+     */
+    protected void setTouchPrediction(long millis){
+        mTouchPrediction = millis;
+    }
+
+    /**
+     * @return a snapshot of the touch tracking statistics
+     */
+    protected SwipeTouchStats getTouchStats(){
+        return new SwipeTouchStats(mSampleCount, mSwipeCount, mRecognitionDelay, mPredictionCount, mPredictionError);
+    }
+
+    /**
+     * Let the slides that follow a release run as ViewPropertyAnimator animations that draw the
+     * row from a hardware layer, so a frame of the slide only moves the layer. The slides still
+     * need the main thread for every frame: they do not keep animating while it stalls, since
+     * apps can't move a View on the render thread. A new touch takes the row over where it is.
+     * Only takes effect from Jelly Bean, on hardware accelerated rows and with the default
+     * animation driver. The collapse animation is not affected, since it changes the layout.
+     * The default value for this property is false
+     *
+     * @param layerAnimations true to slide rows with a ViewPropertyAnimator on a hardware layer
+     */
+    protected void setLayerAnimations(boolean layerAnimations){
+        mLayerAnimations = layerAnimations;
+    }
+
     /**
      * Set whether the list item should fade out when swiping or not.
      * The default value for this property is false
@@ -244,7 +403,7 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
      * @param farSwipeFraction float between 0 and 1, should be equal to or greater than normalSwipeFraction
      */
     protected void setFarSwipeFraction(float farSwipeFraction) {
-        mFarSwipeFraction = farSwipeFraction;
+        mRecognizer.setFarSwipeFraction(farSwipeFraction);
     }
 
     /**
@@ -253,13 +412,72 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
      * @param normalSwipeFraction float between 0 and 1, should be equal to or less than farSwipeFraction
      */
     protected void setNormalSwipeFraction(float normalSwipeFraction) {
-        mNormalSwipeFraction = normalSwipeFraction;
+        mRecognizer.setNormalSwipeFraction(normalSwipeFraction);
     }
     
+    /**
+     * Cancel all running animations and put the rows they were animating back in their resting
+     * state. Swipes that were still sliding out are dropped, since the user has not committed to
+     * them yet.
+     *
+     * @param flushPending true to deliver the actions that were already decided, false to drop them
+     */
+    protected void cancelAnimations(boolean flushPending) {
+        if (mReleased) return;
+
+        // Cancelled animations don't run their end actions
+        RowAnimation[] animations = mRunningAnimations.toArray(new RowAnimation[mRunningAnimations.size()]);
+        for (RowAnimation animation : animations) {
+            animation.cancel();
+            if (animation.view != null) resetView(animation.view);
+        }
+        if (mDownView != null) resetView(mDownView);
+        resetGesture();
+
+        if (mProgressPosted) {
+            mDriver.removeFrameCallback(mProgressCallback);
+            mProgressPosted = false;
+        }
+
+        mDismissAnimationRefCount = 0;
+        if (flushPending && !mPendingDismisses.isEmpty()) {
+            ++mDismissAnimationRefCount;
+            onDismissAnimationEnd();
+        } else {
+            resetPendingViews();
+            mPendingDismisses.clear();
+            mCallbacks.onAnimationsChanged();
+        }
+    }
+
+    /**
+     * Cancel all animations, drop all pending actions and release every reference to a View.
+     * The listener ignores all touch events afterwards.
+     */
+    protected void release() {
+        cancelAnimations(false);
+        mReleased = true;
+        mStableIdIndex.release();
+        if (mListView != null) mListView.removeOnLayoutChangeListener(mLayoutChangeListener);
+        mListView = null;
+    }
+
+    /**
+     * Recompute everything that depends on the width of the ListView. Called whenever a layout
+     * changes the width, e.g. after a rotation or a resize in multi-window mode.
+     *
+     * @param width the new width in pixels
+     */
+    private void setViewWidth(int width) {
+        mViewWidth = Math.max(1, width);
+        mFadeDistance = Math.max(1, mViewWidth / 2);
+        mRecognizer.setWidth(mViewWidth);
+    }
+
     @Override
     public boolean onTouch(View view, MotionEvent motionEvent) {
-        if (mViewWidth < 2) {
-            mViewWidth = mListView.getWidth();
+        if (mReleased) {
+            return false;
         }
 
         switch (motionEvent.getActionMasked()) {
@@ -271,6 +489,7 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
                 // TODO: ensure this is a finger, and set a flag
 
                 // Find the child view that was touched (perform a hit test)
+                boolean tracedHitTest = SwipeTrace.begin(SwipeTrace.HIT_TEST);
                 Rect rect = new Rect();
                 int childCount = mListView.getChildCount();
                 int[] listViewCoords = new int[2];
@@ -285,7 +504,11 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
                         try {
                             mDownViewGroup = (SwipeViewGroup) child;
                             mDownView = mFixedBackgrounds ? mDownViewGroup.getContentView() : child;
-                            if(!mFixedBackgrounds) mDownViewGroup.translateBackgrounds();
+                            if(!mFixedBackgrounds) {
+                                mDownViewGroup.translateBackgrounds();
+                                unclipListView();
+                            }
+                            else mDownViewGroup.resetBackgrounds();
                         }
                         catch(Exception e) {
                             mDownView = child;
@@ -293,130 +516,130 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
                         break;
                     }
                 }
+                SwipeTrace.end(tracedHitTest);
+
+                if (mDownView != null && isCollapsing(mDownView)) {
+                    // The row is on its way out, there is nothing left to swipe
+                    mDownView = null;
+                    mDownViewGroup = null;
+                }
 
                 if (mDownView != null) {
-                    mDownX = motionEvent.getRawX();
-                    mDownY = motionEvent.getRawY();
+                    // Continue from wherever a running animation left the row. This can flush,
+                    // which sends a cancel event: the gesture must not be tracked yet.
+                    float offset = takeOver(mDownView);
+                    mRecognizer.down(motionEvent.getRawX(), motionEvent.getRawY(), motionEvent.getEventTime());
+                    mLastSampleX = motionEvent.getRawX();
+                    mLastSampleTime = motionEvent.getEventTime();
                     mDownPosition = mListView.getPositionForView(mDownView);
-                    mVelocityTracker = VelocityTracker.obtain();
-                    mVelocityTracker.addMovement(motionEvent);
+                    mDownId = getStableId(mDownPosition);
+                    if (offset != 0) {
+                        // The row is already off center: the gesture is a swipe from the start
+                        mRecognizer.takeOver(offset);
+                        mListView.requestDisallowInterceptTouchEvent(true);
+                        return true;
+                    }
                 }
                 return false;
             }
 
             case MotionEvent.ACTION_CANCEL: {
-                if (mVelocityTracker == null) {
+                if (!mRecognizer.isTracking()) {
                     break;
                 }
 
-                if (mDownView != null && mSwiping) {
+                if (mDownView != null && mRecognizer.isSwiping()) {
                     // cancel
-                    mDownView.animate()
-                            .translationX(0)
-                            .alpha(1)
-                            .setDuration(mAnimationTime)
-                            .setListener(new AnimatorListenerAdapter() {
-                                @Override
-                                public void onAnimationEnd(Animator animation) {
-                                    mDownViewGroup.showBackground(SwipeDirection.DIRECTION_NEUTRAL, false);
-                                }
-                            });
+                    final SwipeViewGroup downViewGroup = mDownViewGroup;
+                    animateView(mDownView, 0, 1, ANIMATION_RESET, new Runnable() {
+                        @Override
+                        public void run() {
+                            if (downViewGroup != null) downViewGroup.showBackground(SwipeDirection.DIRECTION_NEUTRAL, false);
+                        }
+                    });
                 }
-                mVelocityTracker.recycle();
-                mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
-                mDownView = null;
-                mDownPosition = ListView.INVALID_POSITION;
-                mSwiping = false;
-                mDirection = SwipeDirection.DIRECTION_NEUTRAL;
-                mFar = false;
+                resetGesture();
                 break;
             }
 
             case MotionEvent.ACTION_UP: {
-                if (mVelocityTracker == null) {
+                if (!mRecognizer.isTracking()) {
                     break;
                 }
-                mCallbacks.onSwipeEnded(mListView, mDownPosition, mDirection);
-                float deltaX = motionEvent.getRawX() - mDownX;
-                mVelocityTracker.addMovement(motionEvent);
-                mVelocityTracker.computeCurrentVelocity(1000);
-                float velocityX = mVelocityTracker.getXVelocity();
-                float absVelocityX = Math.abs(velocityX);
-                float absVelocityY = Math.abs(mVelocityTracker.getYVelocity());
-                boolean dismiss = false;
-                boolean dismissRight = false;
-                if(mCallbacks.hasActions(mDownPosition, mDirection)) {
-                    if (Math.abs(deltaX) > (mViewWidth * mNormalSwipeFraction) && mSwiping) {
-                        dismiss = true;
-                        dismissRight = deltaX > 0;
-                    } else if (mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
-                            && absVelocityY < absVelocityX && mSwiping) {
-                        // dismiss only if flinging in the same direction as dragging
-                        dismiss = (velocityX < 0) == (deltaX < 0);
-                        dismissRight = mVelocityTracker.getXVelocity() > 0;
-                    }
-                }
+                mCallbacks.onSwipeEnded(mListView, mDownPosition, mRecognizer.getDirection());
+                int release = mRecognizer.up(motionEvent.getRawX(), motionEvent.getRawY(), motionEvent.getEventTime());
+                boolean dismiss = release != SwipeGestureRecognizer.RELEASE_CANCEL
+                        && mCallbacks.hasActions(mDownPosition, mRecognizer.getDirection());
+                boolean dismissRight = release == SwipeGestureRecognizer.RELEASE_DISMISS_RIGHT;
                 if (dismiss && mDownPosition != ListView.INVALID_POSITION) {
                     // dismiss
                     final View downView = mDownView; // mDownView gets null'd before animation ends
                     final int downPosition = mDownPosition;
-                    final SwipeDirection direction = mDirection;
+                    final long downId = mDownId;
+                    final SwipeDirection direction = mRecognizer.getDirection();
                     ++mDismissAnimationRefCount;
-                    mDownView.animate()
-                            .translationX(dismissRight ? mViewWidth : -mViewWidth)
-                            .alpha(mFadeOut ? 0 : 1)
-                            .setDuration(mAnimationTime)
-                            .setListener(new AnimatorListenerAdapter() {
-                                @Override
-                                public void onAnimationEnd(Animator animation) {
-                                    boolean performDismiss = mCallbacks.onPreAction(
-                                            mListView,
-                                            downPosition,
-                                            direction
-                                    );
-                                    if(performDismiss) performDismiss(downView,downPosition,direction);
-                                    else slideBack(downView, downPosition, direction);
-                                }
-                            });
+                    animateView(mDownView, dismissRight ? mViewWidth : -mViewWidth, mFadeOut ? 0 : 1, ANIMATION_SLIDE_OUT, new Runnable() {
+                        @Override
+                        public void run() {
+                            // Other dismisses could have changed the data while this row slid out
+                            int position = findCurrentPosition(downView, downId, downPosition);
+                            if (position == ListView.INVALID_POSITION) {
+                                // The item is gone: there is nothing left to act on
+                                resetView(downView);
+                                onDismissAnimationEnd();
+                                return;
+                            }
+                            boolean performDismiss;
+                            boolean traced = SwipeTrace.begin(SwipeTrace.ON_PRE_ACTION);
+                            try {
+                                performDismiss = mCallbacks.onPreAction(
+                                        mListView,
+                                        position,
+                                        direction
+                                );
+                            } finally {
+                                SwipeTrace.end(traced);
+                            }
+                            if(performDismiss) performDismiss(downView,position,downId,direction);
+                            else slideBack(downView, position, downId, direction);
+                        }
+                    });
                 } else {
                     // cancel
-                    mDownView.animate()
-                            .translationX(0)
-                            .alpha(1)
-                            .setDuration(mAnimationTime)
-                            .setListener(new AnimatorListenerAdapter() {
-                                @Override
-                                public void onAnimationEnd(Animator animation) {
-                                    mDownViewGroup.showBackground(SwipeDirection.DIRECTION_NEUTRAL, false);
-                                }
-                            });
+                    final SwipeViewGroup downViewGroup = mDownViewGroup;
+                    animateView(mDownView, 0, 1, ANIMATION_RESET, new Runnable() {
+                        @Override
+                        public void run() {
+                            if (downViewGroup != null) downViewGroup.showBackground(SwipeDirection.DIRECTION_NEUTRAL, false);
+                        }
+                    });
                 }
-                if(mVelocityTracker != null) mVelocityTracker.recycle();
-                mVelocityTracker = null;
-                mDownX = 0;
-                mDownY = 0;
-                mDownView = null;
-                mDownPosition = ListView.INVALID_POSITION;
-                mSwiping = false;
-                mDirection = SwipeDirection.DIRECTION_NEUTRAL;
-                mFar = false;
+                resetGesture();
                 break;
             }
 
             case MotionEvent.ACTION_MOVE: {
-                if (mVelocityTracker == null || mPaused) {
+                if (!mRecognizer.isTracking() || mPaused) {
                     break;
                 }
 
-                mVelocityTracker.addMovement(motionEvent);
-                float deltaX = motionEvent.getRawX() - mDownX;
-                float deltaY = motionEvent.getRawY() - mDownY;
-                if (!mSwiping && Math.abs(deltaX) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
-                    mSwiping = true;
-                    mSwipingSlop = (deltaX > 0 ? mSlop : -mSlop);
+                // Input is batched per frame: replay every sample so the slop, direction, far
+                // threshold and velocity see the path of the finger rather than only where it ended up
+                boolean tracedRecognize = SwipeTrace.begin(SwipeTrace.RECOGNIZE);
+                boolean wasSwiping = mRecognizer.isSwiping();
+                long eventTime = motionEvent.getEventTime();
+                float rawOffsetX = motionEvent.getRawX() - motionEvent.getX();
+                float rawOffsetY = motionEvent.getRawY() - motionEvent.getY();
+                int historySize = motionEvent.getHistorySize();
+                for (int h = 0; h < historySize; h++) {
+                    trackSample(motionEvent.getHistoricalX(h) + rawOffsetX,
+                            motionEvent.getHistoricalY(h) + rawOffsetY,
+                            motionEvent.getHistoricalEventTime(h), eventTime);
+                }
+                trackSample(motionEvent.getRawX(), motionEvent.getRawY(), eventTime, eventTime);
+                SwipeTrace.end(tracedRecognize);
 
+                if (!wasSwiping && mRecognizer.isSwiping()) {
                     mListView.requestDisallowInterceptTouchEvent(true);
 
                     // Cancel ListView's touch (un-highlighting the item)
@@ -428,18 +651,20 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
                     cancelEvent.recycle();
                 }
 
-                if (mSwiping) {
-                    mCallbacks.onSwipeStarted(mListView, mDownPosition, mDirection);
-                    if(mDirection.isLeft() && deltaX > 0 || mDirection.isRight() && deltaX < 0) mFar = false;
-                    if(!mFar && Math.abs(deltaX) > mViewWidth*mFarSwipeFraction) mFar = true;
-                    if(!mFar) mDirection = (deltaX > 0 ? SwipeDirection.DIRECTION_NORMAL_RIGHT : SwipeDirection.DIRECTION_NORMAL_LEFT);
-                    else mDirection = (deltaX > 0 ? SwipeDirection.DIRECTION_FAR_RIGHT : SwipeDirection.DIRECTION_FAR_LEFT);
-                    if(mCallbacks.hasActions(mDownPosition, mDirection)) {
-                        mDownViewGroup.showBackground(mDirection, mDimBackgrounds && (Math.abs(deltaX) < mViewWidth*mNormalSwipeFraction));
-                        mDownView.setTranslationX(deltaX - mSwipingSlop);
+                if (mRecognizer.isSwiping()) {
+                    SwipeDirection direction = mRecognizer.getDirection();
+                    mCallbacks.onSwipeStarted(mListView, mDownPosition, direction);
+                    if (mFadeOut && mFixedBackgrounds && mDownViewGroup != null) mDownViewGroup.acquireContentLayer();
+                    if(mCallbacks.hasActions(mDownPosition, direction)) {
+                        boolean tracedMove = SwipeTrace.begin(SwipeTrace.MOVE);
+                        if (mDownViewGroup != null) mDownViewGroup.showBackground(direction, mDimBackgrounds && !mRecognizer.isPastNormal());
+                        float lead = predict(eventTime);
+                        mDownView.setTranslationX(mRecognizer.getTranslation() + lead);
                         if(mFadeOut) mDownView.setAlpha(Math.max(0f, Math.min(1f,
-                                    1f - 2f * Math.abs(deltaX) / mViewWidth)));
+                                    1f - Math.abs(mRecognizer.getDeltaX() + lead) / mFadeDistance)));
+                        postProgress();
                         mListView.invalidate();
+                        SwipeTrace.end(tracedMove);
                         return true;
                     }
                 }
@@ -449,15 +674,82 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
         return false;
     }
 
+    /**
+     * Feed a single touch sample to the swipe recognition
+     *
+     * @param rawX The x coordinate of the sample on the screen
+     * @param rawY The y coordinate of the sample on the screen
+     * @param time The time the sample was taken
+     * @param eventTime The time the sample was delivered
+     */
+    private void trackSample(float rawX, float rawY, long time, long eventTime) {
+        mSampleCount++;
+        if (mPredictedTime != 0 && time >= mPredictedTime) {
+            // Compare the prediction with the finger position at the predicted time
+            float actualX = rawX;
+            if (time > mLastSampleTime && mPredictedTime > mLastSampleTime) {
+                float progress = (float) (mPredictedTime - mLastSampleTime) / (time - mLastSampleTime);
+                actualX = mLastSampleX + (rawX - mLastSampleX) * progress;
+            }
+            mPredictionError += Math.abs(actualX - mPredictedX);
+            mPredictionCount++;
+            mPredictedTime = 0;
+        }
+        mLastSampleX = rawX;
+        mLastSampleTime = time;
+
+        if (mRecognizer.move(rawX, rawY, time)) {
+            mSwipeCount++;
+            mRecognitionDelay += eventTime - time;
+        }
+    }
+
+    /**
+     * Extrapolate the finger position with its current speed
+     *
+     * @param eventTime The time of the last sample
+     * @return The distance to draw the row ahead of the last sample
+     */
+    private float predict(long eventTime) {
+        if (mTouchPrediction <= 0) return 0;
+        float velocity = mRecognizer.getVelocityX() / 1000f;
+        // Never run ahead by more than a tenth of the row, a wrong guess should not be visible
+        float maxLead = mViewWidth / 10f;
+        float lead = Math.max(-maxLead, Math.min(maxLead, velocity * mTouchPrediction));
+        mPredictedX = mLastSampleX + lead;
+        mPredictedTime = eventTime + mTouchPrediction;
+        return lead;
+    }
+
+    /**
+     * Remember the progress of the swipe and make sure it is reported on the next frame.
+     * Later moves in the same frame only overwrite the values.
+     */
+    private void postProgress() {
+        mProgressPosition = mDownPosition;
+        mProgressDirection = mRecognizer.getDirection();
+        mProgressFraction = Math.abs(mRecognizer.getDeltaX()) / mViewWidth;
+        mProgressPastNormal = mRecognizer.isPastNormal();
+        mProgressPastFar = mRecognizer.isFar();
+        if (!mProgressPosted) {
+            mProgressPosted = true;
+            mDriver.postFrameCallback(mProgressCallback);
+        }
+    }
+
     class PendingDismissData implements Comparable<PendingDismissData> {
         public int position;
+        public long id;
         public SwipeDirection direction;
         public View view;
+        public boolean collapse;
 
-        public PendingDismissData(int position, SwipeDirection direction, View view) {
+        public PendingDismissData(int position, long id, SwipeDirection direction, View view, boolean collapse) {
             this.position = position;
+            this.id = id;
             this.direction = direction;
             this.view = view;
+            this.collapse = collapse;
         }
 
         @Override
@@ -467,17 +759,136 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
         }
     }
 
-    private void slideBack(final View slideInView, final int downPosition, final SwipeDirection direction){
-        mPendingDismisses.add(new PendingDismissData(downPosition, direction, slideInView));
-        slideInView.setTranslationX(slideInView.getTranslationX());
-        slideInView.animate()
-                .translationX(0)
-                .alpha(1)
+    private void slideBack(final View slideInView, final int downPosition, final long downId, final SwipeDirection direction){
+        mPendingDismisses.add(new PendingDismissData(downPosition, downId, direction, slideInView, false));
+        animateView(slideInView, 0, 1, ANIMATION_SLIDE_BACK, new Runnable() {
+            @Override
+            public void run() {
+                onDismissAnimationEnd();
+            }
+        });
+    }
+
+    /**
+     * An animation of one or more rows, tracked so it can be cancelled.
+     * Cancelled animations do not run their end action.
+     *
+     * What an animation moves stays in this object rather than in the arrays of the
+     * {@link FrameAnimationEngine}: layer animations never reach the engine, and a batch dismiss
+     * animates several rows from one handle.
+     */
+    private abstract class RowAnimation implements SwipeAnimationDriver.Animation {
+        int handle = NO_HANDLE;
+        boolean traced = false;
+        final View view;
+        final int kind;
+
+        RowAnimation(View view, int kind) {
+            this.view = view;
+            this.kind = kind;
+        }
+
+        @Override
+        public final void onEnd(boolean cancelled) {
+            mRunningAnimations.remove(this);
+            if (kind == ANIMATION_COLLAPSE) SwipeTrace.endAsync(SwipeTrace.COLLAPSE, handle, traced);
+            if (!cancelled) onFinished();
+            restoreListViewClipping();
+            mCallbacks.onAnimationsChanged();
+        }
+
+        abstract void onFinished();
+
+        /**
+         * Stop the animation without running its end action
+         */
+        void cancel() {
+            if (handle != NO_HANDLE) mDriver.cancel(handle);
+        }
+    }
+
+    private void startAnimation(long duration, RowAnimation animation) {
+        mRunningAnimations.add(animation);
+        animation.handle = mDriver.start(duration, animation);
+        if (animation.kind == ANIMATION_COLLAPSE) animation.traced = SwipeTrace.beginAsync(SwipeTrace.COLLAPSE, animation.handle);
+        mCallbacks.onAnimationsChanged();
+    }
+
+    /**
+     * Same curve as the default interpolator of the framework animators
+     */
+    private static float interpolate(float fraction) {
+        return (float) (Math.cos((fraction + 1) * Math.PI) / 2.0) + 0.5f;
+    }
+
+    /**
+     * Animate the translation and alpha of a row from their current values
+     */
+    private void animateView(final View view, final float translationX, final float alpha, int kind, final Runnable endAction) {
+        if (mLayerAnimations && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                && view.isHardwareAccelerated() && mDriver instanceof PlatformAnimationDriver) {
+            animateViewWithLayer(view, translationX, alpha, kind, endAction);
+            return;
+        }
+        final float startTranslationX = view.getTranslationX();
+        final float startAlpha = view.getAlpha();
+        startAnimation(mAnimationTime, new RowAnimation(view, kind) {
+            @Override
+            public void onUpdate(float fraction) {
+                float value = interpolate(fraction);
+                view.setTranslationX(startTranslationX + (translationX - startTranslationX) * value);
+                view.setAlpha(startAlpha + (alpha - startAlpha) * value);
+            }
+
+            @Override
+            void onFinished() {
+                endAction.run();
+            }
+        });
+    }
+
+    /**
+     * Animate the translation and alpha of a row with a ViewPropertyAnimator, drawn from a
+     * hardware layer. The animator moves the row on every frame, so a cancelled slide leaves it
+     * where it is, and it only runs the end action when the slide has finished.
+     */
+    private void animateViewWithLayer(final View view, final float translationX, final float alpha, int kind, final Runnable endAction) {
+        final RowAnimation animation = new RowAnimation(view, kind) {
+            @Override
+            public void onUpdate(float fraction) {
+                // The animator updates the row
+            }
+
+            @Override
+            void onFinished() {
+                endAction.run();
+            }
+
+            @Override
+            void cancel() {
+                // A cancelled ViewPropertyAnimator skips its end action
+                view.animate().cancel();
+                onEnd(true);
+            }
+        };
+        mRunningAnimations.add(animation);
+        view.animate()
+                .setListener(null)
+                .setStartDelay(0)
                 .setDuration(mAnimationTime)
-                .setListener(createAnimatorListener());
+                .translationX(translationX)
+                .alpha(alpha)
+                .withLayer()
+                .withEndAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        animation.onEnd(false);
+                    }
+                });
+        mCallbacks.onAnimationsChanged();
     }
 
-    private void performDismiss(final View dismissView, final int dismissPosition, final SwipeDirection direction) {
+    private void performDismiss(final View dismissView, final int dismissPosition, final long dismissId, final SwipeDirection direction) {
         // Animate the dismissed list item to zero-height and fire the dismiss callback when
         // all dismissed list item animations have completed. This triggers layout on each animation
         // frame; in the future we may want to do something smarter and more performant.
@@ -485,63 +896,342 @@ public class SwipeActionTouchListener implements View.OnTouchListener {
         final ViewGroup.LayoutParams lp = dismissView.getLayoutParams();
         final int originalHeight = dismissView.getHeight();
 
-        ValueAnimator animator = ValueAnimator.ofInt(originalHeight, 1).setDuration(mAnimationTime);
-
-        animator.addListener(createAnimatorListener());
-
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+        mPendingDismisses.add(new PendingDismissData(dismissPosition, dismissId, direction, dismissView, true));
+        startAnimation(mAnimationTime, new RowAnimation(dismissView, ANIMATION_COLLAPSE) {
             @Override
-            public void onAnimationUpdate(ValueAnimator valueAnimator) {
-                lp.height = (Integer) valueAnimator.getAnimatedValue();
+            public void onUpdate(float fraction) {
+                mCallbacks.onBeforeRowLayout();
+                lp.height = originalHeight - (int) ((originalHeight - 1) * interpolate(fraction));
                 dismissView.setLayoutParams(lp);
             }
-        });
 
-        mPendingDismisses.add(new PendingDismissData(dismissPosition, direction, dismissView));
-        animator.start();
+            @Override
+            void onFinished() {
+                onDismissAnimationEnd();
+            }
+        });
     }
 
-    private AnimatorListenerAdapter createAnimatorListener(){
-        return new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                --mDismissAnimationRefCount;
-                if (mDismissAnimationRefCount == 0) {
-                    // No active animations, process all pending dismisses.
-                    // Sort by descending position
-                    Collections.sort(mPendingDismisses);
-
-                    int[] dismissPositions = new int[mPendingDismisses.size()];
-                    SwipeDirection[] dismissDirections = new SwipeDirection [mPendingDismisses.size()];
-                    for (int i = mPendingDismisses.size() - 1; i >= 0; i--) {
-                        dismissPositions[i] = mPendingDismisses.get(i).position;
-                        dismissDirections[i] = mPendingDismisses.get(i).direction;
+    /**
+     * Dismiss a set of positions without a touch gesture.
+     * All visible rows slide out and collapse together, driven by a single animation. Positions
+     * that are not on screen are not animated, but are still part of the onAction batch.
+     * Positions that occur more than once are only dismissed once.
+     *
+     * @param positions The positions to dismiss
+     * @param direction The direction the rows should slide out to, reported in the onAction batch
+     */
+    protected void dismiss(int[] positions, final SwipeDirection direction) {
+        final int firstPosition = mListView.getFirstVisiblePosition();
+        final int childCount = mListView.getChildCount();
+        final int count = mListView.getCount();
+        final View[] views = new View[positions.length];
+        final ViewGroup.LayoutParams[] layoutParams = new ViewGroup.LayoutParams[positions.length];
+        final int[] heights = new int[positions.length];
+        int visibleCount = 0;
+
+        // Sort a copy, so duplicates end up next to each other
+        int[] sortedPositions = positions.clone();
+        Arrays.sort(sortedPositions);
+        for (int i = 0; i < sortedPositions.length; i++) {
+            int position = sortedPositions[i];
+            if (position < 0 || position >= count) continue;
+            if (i > 0 && position == sortedPositions[i - 1]) continue;
+
+            View view = null;
+            int index = position - firstPosition;
+            if (index >= 0 && index < childCount) {
+                View child = mListView.getChildAt(index);
+                if (child instanceof SwipeViewGroup) {
+                    SwipeViewGroup group = (SwipeViewGroup) child;
+                    if (!mFixedBackgrounds) {
+                        group.translateBackgrounds();
+                        unclipListView();
                     }
-                    mCallbacks.onAction(mListView, dismissPositions, dismissDirections);
-
-                    // Reset mDownPosition to avoid MotionEvent.ACTION_UP trying to start a dismiss
-                    // animation with a stale position
-                    mDownPosition = ListView.INVALID_POSITION;
-
-                    
-                    for (PendingDismissData pendingDismiss : mPendingDismisses) {
-                        // Reset view presentation
-                        pendingDismiss.view.setAlpha(1f);
-                        pendingDismiss.view.setTranslationX(0);
-                        pendingDismiss.view.setLayoutParams(new AbsListView.LayoutParams(AbsListView.LayoutParams.MATCH_PARENT, AbsListView.LayoutParams.WRAP_CONTENT));
+                    group.showBackground(direction, false);
+                    view = mFixedBackgrounds ? group.getContentView() : child;
+                } else {
+                    view = child;
+                }
+                views[visibleCount] = view;
+                layoutParams[visibleCount] = view.getLayoutParams();
+                heights[visibleCount] = view.getHeight();
+                visibleCount++;
+            }
+            mPendingDismisses.add(new PendingDismissData(position, getStableId(position), direction, view, true));
+        }
+
+        ++mDismissAnimationRefCount;
+        if (visibleCount == 0) {
+            onDismissAnimationEnd();
+            return;
+        }
+
+        final int animatedCount = visibleCount;
+        final float targetX = direction.isRight() ? mViewWidth : -mViewWidth;
+        // First half of the animation slides the rows out, the second half collapses them
+        startAnimation(2 * mAnimationTime, new RowAnimation(null, ANIMATION_COLLAPSE) {
+            @Override
+            public void onUpdate(float fraction) {
+                float slide = interpolate(Math.min(1f, fraction * 2));
+                float collapse = interpolate(Math.max(0f, fraction * 2 - 1));
+                if (collapse > 0) mCallbacks.onBeforeRowLayout();
+                for (int i = 0; i < animatedCount; i++) {
+                    View view = views[i];
+                    view.setTranslationX(targetX * slide);
+                    if (mFadeOut) view.setAlpha(1f - slide);
+                    if (collapse > 0) {
+                        layoutParams[i].height = heights[i] - (int) ((heights[i] - 1) * collapse);
+                        view.setLayoutParams(layoutParams[i]);
                     }
+                }
+            }
 
-                    // Send a cancel event
-                    long time = SystemClock.uptimeMillis();
-                    MotionEvent cancelEvent = MotionEvent.obtain(time, time,
-                            MotionEvent.ACTION_CANCEL, 0, 0, 0);
-                    mListView.dispatchTouchEvent(cancelEvent);
+            @Override
+            void onFinished() {
+                onDismissAnimationEnd();
+            }
+        });
+    }
 
-                    mDownViewGroup.showBackground(SwipeDirection.DIRECTION_NEUTRAL, false);
+    /**
+     * @return true if the row is collapsing or waiting to be removed by a flush
+     */
+    private boolean isCollapsing(View view) {
+        for (PendingDismissData pendingDismiss : mPendingDismisses) {
+            if (pendingDismiss.view == view && pendingDismiss.collapse) return true;
+        }
+        return false;
+    }
 
-                    mPendingDismisses.clear();
-                }
+    /**
+     * Hand a row that is being animated over to a new gesture.
+     * The running slide is cancelled and its part of the dismiss bookkeeping is settled: a row
+     * that was still sliding out has not been acted upon yet, so the new gesture decides its fate.
+     * A row that was sliding back keeps its pending action, but the flush no longer touches it.
+     *
+     * @param view The row that was touched
+     * @return The current translation of the row
+     */
+    private float takeOver(View view) {
+        RowAnimation running = null;
+        for (RowAnimation animation : mRunningAnimations) {
+            if (animation.view == view && animation.kind != ANIMATION_COLLAPSE) {
+                running = animation;
+                break;
             }
-        };
+        }
+        // Detach the row before settling the ref count, which could flush
+        for (PendingDismissData pendingDismiss : mPendingDismisses) {
+            if (pendingDismiss.view == view) pendingDismiss.view = null;
+        }
+        if (running != null) {
+            running.cancel();
+            if (running.kind == ANIMATION_SLIDE_OUT || running.kind == ANIMATION_SLIDE_BACK) {
+                onDismissAnimationEnd();
+            }
+        }
+        return view.getTranslationX();
+    }
+
+    private void onDismissAnimationEnd() {
+        if (mDismissAnimationRefCount <= 0) {
+            // A bookkeeping error must not crash the app from an animation callback: flush
+            // whatever is pending instead
+            Log.w(TAG, "Unbalanced dismiss animation");
+            mUnbalancedDismissCount++;
+            mDismissAnimationRefCount = 1;
+        }
+        --mDismissAnimationRefCount;
+        if (mDismissAnimationRefCount == 0) {
+            // No active animations, process all pending dismisses.
+            // The data could have changed during the animations: find the items by id
+            resolvePendingPositions();
+            // Sort by descending position
+            Collections.sort(mPendingDismisses);
+
+            int[] dismissPositions = new int[mPendingDismisses.size()];
+            long[] dismissIds = new long[mPendingDismisses.size()];
+            SwipeDirection[] dismissDirections = new SwipeDirection [mPendingDismisses.size()];
+            for (int i = mPendingDismisses.size() - 1; i >= 0; i--) {
+                dismissPositions[i] = mPendingDismisses.get(i).position;
+                dismissIds[i] = mPendingDismisses.get(i).id;
+                dismissDirections[i] = mPendingDismisses.get(i).direction;
+            }
+            boolean traced = SwipeTrace.begin(SwipeTrace.ON_ACTION);
+            try {
+                mCallbacks.onAction(mListView, dismissPositions, dismissIds, dismissDirections);
+            } finally {
+                SwipeTrace.end(traced);
+            }
+
+            // Update mDownPosition to avoid MotionEvent.ACTION_UP trying to start a dismiss
+            // animation with a stale position. Without a stable id we can't tell where it went.
+            mDownPosition = mDownView != null && mDownId != AdapterView.INVALID_ROW_ID
+                    ? findCurrentPosition(null, mDownId, mDownPosition)
+                    : ListView.INVALID_POSITION;
+
+            resetPendingViews();
+
+            // Send a cancel event
+            long time = mDriver.uptimeMillis();
+            MotionEvent cancelEvent = MotionEvent.obtain(time, time,
+                    MotionEvent.ACTION_CANCEL, 0, 0, 0);
+            mListView.dispatchTouchEvent(cancelEvent);
+
+            mPendingDismisses.clear();
+            mCallbacks.onAnimationsChanged();
+        }
+    }
+
+    private void resetPendingViews() {
+        // onAction could have changed the data: the ListView must know before it lays out again
+        mCallbacks.onBeforeRowLayout();
+        for (PendingDismissData pendingDismiss : mPendingDismisses) {
+            // Programmatic dismisses of rows that were off screen have no view
+            if (pendingDismiss.view == null) continue;
+
+            // Reset view presentation
+            resetView(pendingDismiss.view);
+            pendingDismiss.view.setLayoutParams(new AbsListView.LayoutParams(AbsListView.LayoutParams.MATCH_PARENT, AbsListView.LayoutParams.WRAP_CONTENT));
+        }
+    }
+
+    private static void resetView(View view) {
+        view.setAlpha(1f);
+        view.setTranslationX(0);
+        SwipeViewGroup group = findSwipeViewGroup(view);
+        if (group != null) group.showBackground(SwipeDirection.DIRECTION_NEUTRAL, false);
+    }
+
+    /**
+     * Swiped in backgrounds are drawn outside of their row, which the ListView clips by default.
+     * Clipping is only turned off while such a row is swiped or animated, since it causes
+     * overdraw for every row in the list.
+     */
+    private void unclipListView() {
+        if (mListUnclipped) return;
+        // Leave the ListView alone if the app turned clipping off itself
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 && !mListView.getClipChildren()) return;
+        mListView.setClipChildren(false);
+        mListUnclipped = true;
+    }
+
+    private void restoreListViewClipping() {
+        if (!mListUnclipped || isBusy()) return;
+        mListView.setClipChildren(true);
+        mListUnclipped = false;
+    }
+
+    private void resetGesture() {
+        mRecognizer.reset();
+        mDownView = null;
+        mDownViewGroup = null;
+        mDownPosition = ListView.INVALID_POSITION;
+        mLastSampleTime = 0;
+        mPredictedTime = 0;
+        restoreListViewClipping();
+    }
+
+    private long getStableId(int position) {
+        ListAdapter adapter = mListView.getAdapter();
+        if (adapter == null || !adapter.hasStableIds() || position == ListView.INVALID_POSITION) {
+            return AdapterView.INVALID_ROW_ID;
+        }
+        return mListView.getItemIdAtPosition(position);
+    }
+
+    /**
+     * Find the current position of an item that was touched earlier
+     *
+     * @param view The row that was touched, or null if it should not be used for the lookup
+     * @param id The stable id of the item, or INVALID_ROW_ID
+     * @param position The position of the item when it was touched
+     * @return The current position of the item, or INVALID_POSITION if it no longer exists
+     */
+    private int findCurrentPosition(View view, long id, int position) {
+        ListAdapter adapter = mListView.getAdapter();
+        if (id != AdapterView.INVALID_ROW_ID && adapter != null && adapter.hasStableIds()) {
+            return mStableIdIndex.positionOf(adapter, id, position);
+        }
+        if (view == null) return position;
+        int viewPosition = mListView.getPositionForView(view);
+        return viewPosition == ListView.INVALID_POSITION ? position : viewPosition;
+    }
+
+    /**
+     * @return the amount of dismiss animations that still need to finish before a flush
+     */
+    int getDismissAnimationRefCount() {
+        return mDismissAnimationRefCount;
+    }
+
+    /**
+     * @return how often a dismiss animation ended that was not counted, which is a bug
+     */
+    int getUnbalancedDismissCount() {
+        return mUnbalancedDismissCount;
+    }
+
+    /**
+     * @return the amount of actions waiting for the running animations to finish
+     */
+    int getPendingDismissCount() {
+        return mPendingDismisses.size();
+    }
+
+    /**
+     * @return the amount of running animations
+     */
+    int getRunningAnimationCount() {
+        return mRunningAnimations.size();
+    }
+
+    /**
+     * @return true if the data can change now: no finger is on a row and no row is collapsing
+     */
+    boolean isSafeToMutate() {
+        if (mRecognizer.isTracking()) return false;
+        for (RowAnimation animation : mRunningAnimations) {
+            if (animation.kind == ANIMATION_COLLAPSE) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Move the positions of the actions that wait for their animations, after items were
+     * inserted or removed. Actions on removed items are reported with INVALID_POSITION.
+     *
+     * @param position The first visible position of the adapter that changed, without headers
+     * @param removed The amount of visible items that were removed at the position
+     * @param inserted The amount of items that were inserted at the position
+     */
+    void remapPendingPositions(int position, int removed, int inserted) {
+        // The actions hold ListView positions, which count the header views
+        position += mListView.getHeaderViewsCount();
+        for (PendingDismissData pendingDismiss : mPendingDismisses) {
+            if (pendingDismiss.position == ListView.INVALID_POSITION || pendingDismiss.position < position) continue;
+            if (pendingDismiss.position < position + removed) {
+                pendingDismiss.position = ListView.INVALID_POSITION;
+            } else {
+                pendingDismiss.position += inserted - removed;
+            }
+        }
+    }
+
+    private void resolvePendingPositions() {
+        ListAdapter adapter = mListView.getAdapter();
+        if (adapter == null || !adapter.hasStableIds()) return;
+
+        for (PendingDismissData pendingDismiss : mPendingDismisses) {
+            if (pendingDismiss.id == AdapterView.INVALID_ROW_ID) continue;
+            pendingDismiss.position = mStableIdIndex.positionOf(adapter, pendingDismiss.id, pendingDismiss.position);
+        }
+    }
+
+    private static SwipeViewGroup findSwipeViewGroup(View view) {
+        if (view instanceof SwipeViewGroup) return (SwipeViewGroup) view;
+        if (view.getParent() instanceof SwipeViewGroup) return (SwipeViewGroup) view.getParent();
+        return null;
     }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+/**
+ * Source of time and frames for everything the library animates.
+ *
+ * The default implementation follows the display's frame clock. Tests and benchmarks can plug in
+ * a {@link ManualAnimationDriver} to step through animations synchronously.
+ * All methods are called on the main thread.
+ */
+public interface SwipeAnimationDriver {
+    /**
+     * A single animation, driven by the fraction of its duration that has elapsed
+     */
+    interface Animation {
+        /**
+         * Called once per frame while the animation is running
+         *
+         * @param fraction the linear fraction of the duration that has elapsed, between 0 and 1
+         */
+        void onUpdate(float fraction);
+
+        /**
+         * Called exactly once, when the animation has finished or was cancelled
+         *
+         * @param cancelled true if the animation was cancelled through {@link #cancel(int)}
+         */
+        void onEnd(boolean cancelled);
+    }
+
+    /**
+     * Callback that runs once, at the start of the next frame
+     */
+    interface FrameCallback {
+        /**
+         * @param frameTimeNanos the time the frame started, in the {@link System#nanoTime()} base
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    /**
+     * @return the current time in milliseconds, in the {@link android.os.SystemClock#uptimeMillis()} base
+     */
+    long uptimeMillis();
+
+    /**
+     * Start an animation. The first update is delivered on the next frame.
+     *
+     * @param duration the duration of the animation in milliseconds
+     * @param animation the animation to run
+     * @return a handle that can be used to cancel the animation
+     */
+    int start(long duration, Animation animation);
+
+    /**
+     * Cancel a running animation. Its onEnd callback runs before this method returns.
+     * Does nothing if the animation has already ended.
+     *
+     * @param handle the handle returned by {@link #start(long, Animation)}
+     */
+    void cancel(int handle);
+
+    /**
+     * @return the amount of animations that are currently running
+     */
+    int getRunningCount();
+
+    /**
+     * Run a callback at the start of the next frame
+     *
+     * @param callback the callback to run
+     */
+    void postFrameCallback(FrameCallback callback);
+
+    /**
+     * Remove a callback that was posted but has not run yet
+     *
+     * @param callback the callback to remove
+     */
+    void removeFrameCallback(FrameCallback callback);
+}
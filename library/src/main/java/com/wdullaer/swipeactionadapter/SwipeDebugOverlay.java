@@ -0,0 +1,73 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Draws a {@link SwipeDebugReport} in the top left corner of the ListView, from its overlay
+ */
+class SwipeDebugOverlay extends Drawable {
+    private static final int BACKGROUND_COLOR = 0xB0000000;
+    private static final int TEXT_COLOR = 0xFFFFFFFF;
+    private static final float TEXT_SIZE = 12; // dp
+
+    private final SwipeActionAdapter mAdapter;
+    private final Paint mBackgroundPaint = new Paint();
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float mPadding;
+
+    SwipeDebugOverlay(SwipeActionAdapter adapter, float density) {
+        mAdapter = adapter;
+        mBackgroundPaint.setColor(BACKGROUND_COLOR);
+        mTextPaint.setColor(TEXT_COLOR);
+        mTextPaint.setTextSize(TEXT_SIZE * density);
+        mPadding = 4 * density;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        String[] lines = mAdapter.getDebugReport().toString().split("\n");
+        float lineHeight = mTextPaint.getFontSpacing();
+        float width = 0;
+        for (String line : lines) width = Math.max(width, mTextPaint.measureText(line));
+
+        canvas.drawRect(0, 0, width + 2 * mPadding, lines.length * lineHeight + 2 * mPadding, mBackgroundPaint);
+        for (int i = 0; i < lines.length; i++) {
+            canvas.drawText(lines[i], mPadding, mPadding + (i + 1) * lineHeight, mTextPaint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mTextPaint.setAlpha(alpha);
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        mTextPaint.setColorFilter(colorFilter);
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ListView;
+
+/**
+ * Snapshot of what the swipe rows of a {@link SwipeActionAdapter} cost.
+ *
+ * The byte estimate is rough: it counts a fixed amount per View for the object, its layout
+ * params and render node, plus the memory of any layer a View is drawn from. It is meant to
+ * compare configurations and to spot rows that keep growing, not as an exact heap size.
+ */
+@SuppressWarnings("unused")
+public final class SwipeDebugReport {
+    // Shallow size of a View with its LayoutParams and RenderNode on a 32-bit runtime
+    private static final int VIEW_BYTES = 512;
+    private static final int LAYER_BYTES_PER_PIXEL = 4;
+
+    /** The amount of rows that are currently attached to the ListView */
+    public final int rows;
+    /** The mean amount of Views in a row, including the row and its backgrounds */
+    public final float viewsPerRow;
+    /** The amount of background Views that were inflated since the adapter was created */
+    public final int inflatedBackgrounds;
+    /** The amount of rows that getView had to create */
+    public final int wrappersCreated;
+    /** The amount of rows that getView took from the rows built ahead of time */
+    public final int wrappersPooled;
+    /** The amount of times getView could recycle a row */
+    public final int wrappersRecycled;
+    /** The estimated memory retained by a row, in bytes */
+    public final long bytesPerRow;
+    /** The amount of actions waiting for running animations to finish */
+    public final int pendingDismisses;
+    /** The amount of running row animations */
+    public final int runningAnimations;
+
+    private SwipeDebugReport(int rows, float viewsPerRow, int inflatedBackgrounds, int wrappersCreated, int wrappersPooled,
+                             int wrappersRecycled, long bytesPerRow, int pendingDismisses, int runningAnimations) {
+        this.rows = rows;
+        this.viewsPerRow = viewsPerRow;
+        this.inflatedBackgrounds = inflatedBackgrounds;
+        this.wrappersCreated = wrappersCreated;
+        this.wrappersPooled = wrappersPooled;
+        this.wrappersRecycled = wrappersRecycled;
+        this.bytesPerRow = bytesPerRow;
+        this.pendingDismisses = pendingDismisses;
+        this.runningAnimations = runningAnimations;
+    }
+
+    /**
+     * Measure the rows that are currently attached to a ListView
+     *
+     * @param listView The ListView, or null if the adapter is not attached
+     * @param touchListener The touch listener of the ListView, or null
+     * @param inflatedBackgrounds The amount of backgrounds the adapter inflated
+     * @param wrappersCreated The amount of rows the adapter created
+     * @param wrappersPooled The amount of rows the adapter took from the rows built ahead of time
+     * @param wrappersRecycled The amount of rows the adapter recycled
+     * @return the report
+     */
+    static SwipeDebugReport collect(ListView listView, SwipeActionTouchListener touchListener,
+                                    int inflatedBackgrounds, int wrappersCreated, int wrappersPooled,
+                                    int wrappersRecycled) {
+        int rows = 0;
+        int views = 0;
+        long bytes = 0;
+        if (listView != null) {
+            for (int i = 0; i < listView.getChildCount(); i++) {
+                View child = listView.getChildAt(i);
+                if (!(child instanceof SwipeViewGroup)) continue;
+                rows++;
+                views += countViews(child);
+                bytes += estimateBytes(child);
+            }
+        }
+        return new SwipeDebugReport(
+                rows,
+                rows == 0 ? 0 : (float) views / rows,
+                inflatedBackgrounds,
+                wrappersCreated,
+                wrappersPooled,
+                wrappersRecycled,
+                rows == 0 ? 0 : bytes / rows,
+                touchListener != null ? touchListener.getPendingDismissCount() : 0,
+                touchListener != null ? touchListener.getRunningAnimationCount() : 0
+        );
+    }
+
+    private static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) count += countViews(group.getChildAt(i));
+        }
+        return count;
+    }
+
+    private static long estimateBytes(View view) {
+        long bytes = VIEW_BYTES;
+        if (view.getLayerType() != View.LAYER_TYPE_NONE) {
+            bytes += (long) view.getWidth() * view.getHeight() * LAYER_BYTES_PER_PIXEL;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) bytes += estimateBytes(group.getChildAt(i));
+        }
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "rows: " + rows + "\n"
+                + "views per row: " + viewsPerRow + "\n"
+                + "inflated backgrounds: " + inflatedBackgrounds + "\n"
+                + "rows created: " + wrappersCreated + ", prebuilt: " + wrappersPooled + ", recycled: " + wrappersRecycled + "\n"
+                + "bytes per row: ~" + bytesPerRow + "\n"
+                + "pending dismisses: " + pendingDismisses + "\n"
+                + "running animations: " + runningAnimations;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.support.annotation.MainThread;
+
+import java.util.Arrays;
+
+/**
+ * The swipe directions that are enabled for every position of the wrapped adapter, as an
+ * alternative to answering {@link SwipeActionAdapter.SwipeActionListener#hasActions}.
+ *
+ * Every position takes 4 bits, one per direction, packed 16 to a long. Positions beyond the
+ * ones that were set use the default mask. Only use it from the UI thread.
+ */
+@SuppressWarnings("unused")
+public class SwipeDirectionMask {
+    /** No direction can be swiped */
+    public static final int NONE = 0;
+    /** Every direction can be swiped */
+    public static final int ALL = 0xF;
+
+    private static final int BITS = 4;
+    private static final int PER_WORD = 64 / BITS;
+
+    private long[] mWords = new long[4];
+    private int mSize = 0;
+    private int mDefaultMask;
+
+    /**
+     * Creates a mask in which every position can be swiped in every direction
+     */
+    public SwipeDirectionMask() {
+        this(ALL);
+    }
+
+    /**
+     * @param defaultMask the mask of positions that were never set
+     */
+    public SwipeDirectionMask(int defaultMask) {
+        mDefaultMask = defaultMask & ALL;
+    }
+
+    /**
+     * @param direction a swipe direction
+     * @return the bit of the direction, 0 for DIRECTION_NEUTRAL
+     */
+    public static int bit(SwipeDirection direction) {
+        return direction == SwipeDirection.DIRECTION_NEUTRAL ? 0 : 1 << direction.ordinal();
+    }
+
+    /**
+     * @param directions the swipe directions to enable
+     * @return a mask with the bits of all the directions set
+     */
+    public static int of(SwipeDirection... directions) {
+        int mask = NONE;
+        for (SwipeDirection direction : directions) mask |= bit(direction);
+        return mask;
+    }
+
+    /**
+     * @return the amount of positions that were set
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * @param position a position in the wrapped adapter
+     * @param direction a swipe direction
+     * @return true if the position can be swiped in the direction
+     */
+    public boolean has(int position, SwipeDirection direction) {
+        return (get(position) & bit(direction)) != 0;
+    }
+
+    /**
+     * @param position a position in the wrapped adapter
+     * @return the directions in which the position can be swiped
+     */
+    public int get(int position) {
+        if (position < 0) return NONE;
+        if (position >= mSize) return mDefaultMask;
+        return read(position);
+    }
+
+    /**
+     * Set the directions in which a position can be swiped
+     *
+     * @param position a position in the wrapped adapter
+     * @param mask the bits of the enabled directions
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask set(int position, int mask) {
+        return setRange(position, 1, mask);
+    }
+
+    /**
+     * Set the same directions for a range of positions
+     *
+     * @param position the first position in the wrapped adapter
+     * @param count the amount of positions
+     * @param mask the bits of the enabled directions
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask setRange(int position, int count, int mask) {
+        if (position < 0 || count <= 0) return this;
+        ensureSize(position + count);
+        for (int i = position; i < position + count; i++) write(i, mask);
+        return this;
+    }
+
+    /**
+     * Set the directions of consecutive positions at once
+     *
+     * @param position the first position in the wrapped adapter
+     * @param masks the bits of the enabled directions of every position
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask setAll(int position, int[] masks) {
+        if (position < 0 || masks.length == 0) return this;
+        ensureSize(position + masks.length);
+        for (int i = 0; i < masks.length; i++) write(position + i, masks[i]);
+        return this;
+    }
+
+    /**
+     * Make room for items that were inserted into the wrapped adapter. The new items get the
+     * default mask.
+     *
+     * @param position the position of the first new item
+     * @param count the amount of new items
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask insert(int position, int count) {
+        return insert(position, count, mDefaultMask);
+    }
+
+    /**
+     * Make room for items that were inserted into the wrapped adapter
+     *
+     * @param position the position of the first new item
+     * @param count the amount of new items
+     * @param mask the bits of the enabled directions of the new items
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask insert(int position, int count, int mask) {
+        if (position < 0 || count <= 0) return this;
+        if (position >= mSize) return setRange(position, count, mask);
+        int oldSize = mSize;
+        ensureSize(mSize + count);
+        for (int i = oldSize - 1; i >= position; i--) write(i + count, read(i));
+        for (int i = position; i < position + count; i++) write(i, mask);
+        return this;
+    }
+
+    /**
+     * Forget items that were removed from the wrapped adapter
+     *
+     * @param position the position of the first removed item
+     * @param count the amount of removed items
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask remove(int position, int count) {
+        if (position < 0 || count <= 0 || position >= mSize) return this;
+        int end = Math.min(mSize, position + count);
+        for (int i = end; i < mSize; i++) write(i - (end - position), read(i));
+        mSize -= end - position;
+        return this;
+    }
+
+    /**
+     * Forget all positions that were set
+     *
+     * @return A reference to the current instance so that commands can be chained
+     */
+    @MainThread
+    public SwipeDirectionMask clear() {
+        mSize = 0;
+        return this;
+    }
+
+    private void ensureSize(int size) {
+        if (size <= mSize) return;
+        int words = (size + PER_WORD - 1) / PER_WORD;
+        if (words > mWords.length) mWords = Arrays.copyOf(mWords, Math.max(words, mWords.length * 2));
+        // Positions between the old and the new size were never set
+        for (int i = mSize; i < size; i++) write(i, mDefaultMask);
+        mSize = size;
+    }
+
+    private int read(int position) {
+        return (int) (mWords[position / PER_WORD] >>> shift(position)) & ALL;
+    }
+
+    private void write(int position, int mask) {
+        int word = position / PER_WORD;
+        int shift = shift(position);
+        mWords[word] = (mWords[word] & ~((long) ALL << shift)) | ((long) (mask & ALL) << shift);
+    }
+
+    private static int shift(int position) {
+        return (position % PER_WORD) * BITS;
+    }
+}
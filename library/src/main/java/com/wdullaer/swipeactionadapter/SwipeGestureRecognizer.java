@@ -0,0 +1,381 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+/**
+ * The decisions behind a horizontal swipe, as a state machine over plain touch samples.
+ *
+ * Feed it a {@link #down(float, float, long)}, any number of {@link #move(float, float, long)}
+ * calls and finally {@link #up(float, float, long)} or {@link #reset()}. It decides when the
+ * touch slop is crossed, which {@link SwipeDirection} the swipe has (including the far swipe
+ * hysteresis) and whether a release dismisses the item, either by distance or by a fling.
+ *
+ * It has no dependencies on Android views or events, and does not allocate after construction,
+ * so it can run on a plain JVM and drive any container that moves rows around.
+ */
+@SuppressWarnings("unused")
+public final class SwipeGestureRecognizer {
+    /** No gesture is in progress */
+    public static final int STATE_IDLE = 0;
+    /** A finger is down, but has not moved far enough horizontally to be a swipe */
+    public static final int STATE_TRACKING = 1;
+    /** The gesture is a horizontal swipe */
+    public static final int STATE_SWIPING = 2;
+
+    /** The release does not dismiss the item */
+    public static final int RELEASE_CANCEL = 0;
+    /** The release dismisses the item to the left */
+    public static final int RELEASE_DISMISS_LEFT = 1;
+    /** The release dismisses the item to the right */
+    public static final int RELEASE_DISMISS_RIGHT = 2;
+
+    // Only samples this recent count towards the velocity
+    private static final int VELOCITY_HORIZON = 100;
+    private static final int VELOCITY_SAMPLES = 20;
+
+    private int mSlop;
+    private float mMinFlingVelocity;
+    private float mMaxFlingVelocity = Float.MAX_VALUE;
+    private int mWidth = 1; // 1 and not 0 to prevent dividing by zero
+    private float mNormalSwipeFraction = 0.25f;
+    private float mFarSwipeFraction = 0.5f;
+    // The swipe fractions in pixels, kept in step with the width
+    private float mNormalThreshold = 0;
+    private float mFarThreshold = 0;
+
+    private int mState = STATE_IDLE;
+    private float mDownX;
+    private float mDownY;
+    private float mLastX;
+    private float mLastY;
+    private int mSwipingSlop;
+    private SwipeDirection mDirection = SwipeDirection.DIRECTION_NEUTRAL;
+    private boolean mFar;
+
+    // Ring buffer of the most recent samples
+    private final float[] mSampleX = new float[VELOCITY_SAMPLES];
+    private final float[] mSampleY = new float[VELOCITY_SAMPLES];
+    private final long[] mSampleTime = new long[VELOCITY_SAMPLES];
+    private int mSampleHead = 0;
+    private int mSampleCount = 0;
+    private float mVelocityX;
+    private float mVelocityY;
+    private boolean mVelocityValid;
+
+    /**
+     * Set the distance a finger has to move horizontally before the gesture is a swipe
+     *
+     * @param slop the distance in pixels
+     * @return A reference to the current instance so that commands can be chained
+     */
+    public SwipeGestureRecognizer setTouchSlop(int slop) {
+        mSlop = slop;
+        return this;
+    }
+
+    /**
+     * Set the range of horizontal speeds that dismiss an item when it is released early
+     *
+     * @param minVelocity the minimum speed in pixels per second
+     * @param maxVelocity the maximum speed in pixels per second
+     * @return A reference to the current instance so that commands can be chained
+     */
+    public SwipeGestureRecognizer setFlingVelocity(float minVelocity, float maxVelocity) {
+        mMinFlingVelocity = minVelocity;
+        mMaxFlingVelocity = maxVelocity;
+        return this;
+    }
+
+    /**
+     * Set the width of the items, the swipe fractions are relative to it
+     *
+     * @param width the width in pixels
+     * @return A reference to the current instance so that commands can be chained
+     */
+    public SwipeGestureRecognizer setWidth(int width) {
+        mWidth = Math.max(1, width);
+        updateThresholds();
+        return this;
+    }
+
+    /**
+     * @return the width of the items in pixels
+     */
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * Set the fraction of the width that needs to be swiped before it is counted as a normal swipe
+     *
+     * @param normalSwipeFraction float between 0 and 1
+     * @return A reference to the current instance so that commands can be chained
+     */
+    public SwipeGestureRecognizer setNormalSwipeFraction(float normalSwipeFraction) {
+        mNormalSwipeFraction = normalSwipeFraction;
+        updateThresholds();
+        return this;
+    }
+
+    /**
+     * Set the fraction of the width that needs to be swiped before it is counted as a far swipe
+     *
+     * @param farSwipeFraction float between 0 and 1
+     * @return A reference to the current instance so that commands can be chained
+     */
+    public SwipeGestureRecognizer setFarSwipeFraction(float farSwipeFraction) {
+        mFarSwipeFraction = farSwipeFraction;
+        updateThresholds();
+        return this;
+    }
+
+    /**
+     * Start a new gesture
+     *
+     * @param x the horizontal position of the finger
+     * @param y the vertical position of the finger
+     * @param time the time of the sample in milliseconds
+     */
+    public void down(float x, float y, long time) {
+        reset();
+        mState = STATE_TRACKING;
+        mDownX = x;
+        mDownY = y;
+        mLastX = x;
+        mLastY = y;
+        addSample(x, y, time);
+    }
+
+    /**
+     * Continue from an item that is already moved aside, for example by an animation that was
+     * interrupted. The gesture is a swipe right away.
+     * Must be called right after {@link #down(float, float, long)}.
+     *
+     * @param offset the current horizontal offset of the item
+     */
+    public void takeOver(float offset) {
+        if (mState == STATE_IDLE || offset == 0) return;
+        mDownX = mLastX - offset;
+        mState = STATE_SWIPING;
+        mSwipingSlop = 0;
+        updateDirection(offset);
+    }
+
+    /**
+     * Add a sample of a moving finger
+     *
+     * @param x the horizontal position of the finger
+     * @param y the vertical position of the finger
+     * @param time the time of the sample in milliseconds
+     * @return true if this sample turned the gesture into a swipe
+     */
+    public boolean move(float x, float y, long time) {
+        if (mState == STATE_IDLE) return false;
+        mLastX = x;
+        mLastY = y;
+        addSample(x, y, time);
+
+        float deltaX = x - mDownX;
+        float deltaY = y - mDownY;
+        boolean started = false;
+        if (mState == STATE_TRACKING && Math.abs(deltaX) > mSlop && Math.abs(deltaY) < Math.abs(deltaX) / 2) {
+            mState = STATE_SWIPING;
+            mSwipingSlop = (deltaX > 0 ? mSlop : -mSlop);
+            started = true;
+        }
+        if (mState == STATE_SWIPING) updateDirection(deltaX);
+        return started;
+    }
+
+    /**
+     * End the gesture with the finger lifted
+     *
+     * @param x the horizontal position of the finger
+     * @param y the vertical position of the finger
+     * @param time the time of the sample in milliseconds
+     * @return one of the RELEASE constants
+     */
+    public int up(float x, float y, long time) {
+        if (mState == STATE_IDLE) return RELEASE_CANCEL;
+        mLastX = x;
+        mLastY = y;
+        addSample(x, y, time);
+        if (mState != STATE_SWIPING) return RELEASE_CANCEL;
+
+        float deltaX = x - mDownX;
+        if (Math.abs(deltaX) > mNormalThreshold) {
+            return deltaX > 0 ? RELEASE_DISMISS_RIGHT : RELEASE_DISMISS_LEFT;
+        }
+        float velocityX = getVelocityX();
+        float absVelocityX = Math.abs(velocityX);
+        float absVelocityY = Math.abs(getVelocityY());
+        // dismiss only if flinging in the same direction as dragging
+        if (mMinFlingVelocity <= absVelocityX && absVelocityX <= mMaxFlingVelocity
+                && absVelocityY < absVelocityX && (velocityX < 0) == (deltaX < 0)) {
+            return velocityX > 0 ? RELEASE_DISMISS_RIGHT : RELEASE_DISMISS_LEFT;
+        }
+        return RELEASE_CANCEL;
+    }
+
+    /**
+     * Abandon the gesture
+     */
+    public void reset() {
+        mState = STATE_IDLE;
+        mDownX = 0;
+        mDownY = 0;
+        mLastX = 0;
+        mLastY = 0;
+        mSwipingSlop = 0;
+        mDirection = SwipeDirection.DIRECTION_NEUTRAL;
+        mFar = false;
+        mSampleHead = 0;
+        mSampleCount = 0;
+        mVelocityValid = false;
+    }
+
+    /**
+     * @return one of the STATE constants
+     */
+    public int getState() {
+        return mState;
+    }
+
+    /**
+     * @return true if a gesture is in progress
+     */
+    public boolean isTracking() {
+        return mState != STATE_IDLE;
+    }
+
+    /**
+     * @return true if the gesture is a swipe
+     */
+    public boolean isSwiping() {
+        return mState == STATE_SWIPING;
+    }
+
+    /**
+     * @return the direction of the swipe
+     */
+    public SwipeDirection getDirection() {
+        return mDirection;
+    }
+
+    /**
+     * @return true if the swipe went beyond the far swipe fraction, and has not returned to the
+     * other side of its starting point since
+     */
+    public boolean isFar() {
+        return mFar;
+    }
+
+    /**
+     * @return true if the item is swiped beyond the normal swipe fraction
+     */
+    public boolean isPastNormal() {
+        return Math.abs(getDeltaX()) > mNormalThreshold;
+    }
+
+    /**
+     * @return the horizontal distance from the start of the gesture to the last sample
+     */
+    public float getDeltaX() {
+        return mLastX - mDownX;
+    }
+
+    /**
+     * @return the offset to draw the item at: the distance moved past the touch slop
+     */
+    public float getTranslation() {
+        return getDeltaX() - mSwipingSlop;
+    }
+
+    /**
+     * @return the horizontal velocity over the most recent samples, in pixels per second
+     */
+    public float getVelocityX() {
+        computeVelocity();
+        return mVelocityX;
+    }
+
+    /**
+     * @return the vertical velocity over the most recent samples, in pixels per second
+     */
+    public float getVelocityY() {
+        computeVelocity();
+        return mVelocityY;
+    }
+
+    private void updateDirection(float deltaX) {
+        if(mDirection.isLeft() && deltaX > 0 || mDirection.isRight() && deltaX < 0) mFar = false;
+        if(!mFar && Math.abs(deltaX) > mFarThreshold) mFar = true;
+        if(!mFar) mDirection = (deltaX > 0 ? SwipeDirection.DIRECTION_NORMAL_RIGHT : SwipeDirection.DIRECTION_NORMAL_LEFT);
+        else mDirection = (deltaX > 0 ? SwipeDirection.DIRECTION_FAR_RIGHT : SwipeDirection.DIRECTION_FAR_LEFT);
+    }
+
+    private void updateThresholds() {
+        mNormalThreshold = mWidth * mNormalSwipeFraction;
+        mFarThreshold = mWidth * mFarSwipeFraction;
+    }
+
+    private void addSample(float x, float y, long time) {
+        mSampleX[mSampleHead] = x;
+        mSampleY[mSampleHead] = y;
+        mSampleTime[mSampleHead] = time;
+        mSampleHead = (mSampleHead + 1) % VELOCITY_SAMPLES;
+        if (mSampleCount < VELOCITY_SAMPLES) mSampleCount++;
+        mVelocityValid = false;
+    }
+
+    /**
+     * Least squares fit of a straight line through the samples within the horizon
+     */
+    private void computeVelocity() {
+        if (mVelocityValid) return;
+        mVelocityValid = true;
+        mVelocityX = 0;
+        mVelocityY = 0;
+        if (mSampleCount < 2) return;
+
+        int newest = (mSampleHead + VELOCITY_SAMPLES - 1) % VELOCITY_SAMPLES;
+        long newestTime = mSampleTime[newest];
+        // Times relative to the newest sample keep the sums small
+        double sumT = 0, sumTT = 0, sumX = 0, sumTX = 0, sumY = 0, sumTY = 0;
+        int n = 0;
+        for (int i = 0; i < mSampleCount; i++) {
+            int index = (newest + VELOCITY_SAMPLES - i) % VELOCITY_SAMPLES;
+            long age = newestTime - mSampleTime[index];
+            if (age > VELOCITY_HORIZON) break;
+            double t = -age;
+            double x = mSampleX[index] - mSampleX[newest];
+            double y = mSampleY[index] - mSampleY[newest];
+            sumT += t;
+            sumTT += t * t;
+            sumX += x;
+            sumTX += t * x;
+            sumY += y;
+            sumTY += t * y;
+            n++;
+        }
+        double denominator = n * sumTT - sumT * sumT;
+        if (n < 2 || denominator == 0) return;
+        // Samples are in milliseconds, velocities in pixels per second
+        mVelocityX = (float) (1000 * (n * sumTX - sumT * sumX) / denominator);
+        mVelocityY = (float) (1000 * (n * sumTY - sumT * sumY) / denominator);
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+/**
+ * The steps the adaptive quality mode takes when frames are missed. Every step also turns off
+ * the effects of the steps before it.
+ */
+public enum SwipeQuality {
+    /**
+     * All effects are drawn as configured
+     */
+    FULL,
+    /**
+     * Rows don't fade out while they are swiped
+     */
+    NO_FADE,
+    /**
+     * Backgrounds are not dimmed before the normal swipe threshold
+     */
+    NO_DIM,
+    /**
+     * Backgrounds are fixed instead of swiping in with the row
+     */
+    FIXED_BACKGROUNDS,
+    /**
+     * Animations take half as long
+     */
+    SHORT_ANIMATIONS
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+/**
+ * Snapshot of the touch tracking statistics of a {@link SwipeActionAdapter}.
+ *
+ * Replaying the same recorded gestures with different settings and comparing these numbers shows
+ * how far behind the finger swipe recognition is, and how well touch prediction guesses ahead.
+ */
+@SuppressWarnings("unused")
+public final class SwipeTouchStats {
+    /** The amount of touch samples that were processed, including batched historical samples */
+    public final long samples;
+    /** The amount of gestures that were recognized as a swipe */
+    public final long swipes;
+    /**
+     * The mean time in milliseconds between the sample that crossed the touch slop and the
+     * delivery of the MotionEvent that contained it
+     */
+    public final double meanRecognitionDelay;
+    /** The amount of predicted positions that were checked against a later sample */
+    public final long predictions;
+    /** The mean distance in pixels between a predicted position and where the finger really was */
+    public final double meanPredictionError;
+
+    SwipeTouchStats(long samples, long swipes, long recognitionDelay, long predictions, double predictionError) {
+        this.samples = samples;
+        this.swipes = swipes;
+        this.meanRecognitionDelay = swipes == 0 ? 0 : (double) recognitionDelay / swipes;
+        this.predictions = predictions;
+        this.meanPredictionError = predictions == 0 ? 0 : predictionError / predictions;
+    }
+
+    @Override
+    public String toString() {
+        return "samples=" + samples + " swipes=" + swipes
+                + " recognitionDelay=" + meanRecognitionDelay + "ms"
+                + " predictions=" + predictions
+                + " predictionError=" + meanPredictionError + "px";
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * System trace sections for the hot paths of the library.
+ *
+ * Disabled by default: every call then costs a single static field read. Sections need API 18,
+ * async sections API 29. The async methods are looked up by reflection, since they are newer
+ * than the SDK the library compiles against.
+ */
+final class SwipeTrace {
+    static final String HIT_TEST = "SwipeAction:hitTest";
+    static final String RECOGNIZE = "SwipeAction:recognize";
+    static final String MOVE = "SwipeAction:move";
+    static final String CREATE_ROW = "SwipeAction:createRow";
+    static final String INFLATE_BACKGROUNDS = "SwipeAction:inflateBackgrounds";
+    static final String ON_PRE_ACTION = "SwipeAction:onPreAction";
+    static final String ON_ACTION = "SwipeAction:onAction";
+    static final String COLLAPSE = "SwipeAction:collapse";
+
+    private static boolean sEnabled = false;
+    private static boolean sAsyncResolved = false;
+    private static Method sBeginAsyncSection;
+    private static Method sEndAsyncSection;
+    // Build.VERSION_CODES.Q, which the SDK we compile against doesn't have yet
+    private static final int API_ASYNC_SECTIONS = 29;
+
+    private SwipeTrace() {}
+
+    static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    /**
+     * Start a section on the current call stack
+     *
+     * @param name The name of the section
+     * @return whether the section was started, to pass to {@link #end(boolean)}
+     */
+    static boolean begin(String name) {
+        if (!sEnabled) return false;
+        Trace.beginSection(name);
+        return true;
+    }
+
+    /**
+     * End a section. Tracing can be switched on or off in between: only the sections that were
+     * started are ended.
+     *
+     * @param began what {@link #begin(String)} returned
+     */
+    static void end(boolean began) {
+        if (began) Trace.endSection();
+    }
+
+    /**
+     * Start a section that can end on another call stack
+     *
+     * @param name The name of the section
+     * @param cookie Identifies the section among others with the same name that run at the same time
+     * @return whether the section was started, to pass to {@link #endAsync(String, int, boolean)}
+     */
+    static boolean beginAsync(String name, int cookie) {
+        if (!sEnabled) return false;
+        invokeAsync(true, name, cookie);
+        return true;
+    }
+
+    static void endAsync(String name, int cookie, boolean began) {
+        if (began) invokeAsync(false, name, cookie);
+    }
+
+    private static void invokeAsync(boolean begin, String name, int cookie) {
+        if (Build.VERSION.SDK_INT < API_ASYNC_SECTIONS) return;
+        if (!sAsyncResolved) {
+            sAsyncResolved = true;
+            try {
+                sBeginAsyncSection = Trace.class.getMethod("beginAsyncSection", String.class, int.class);
+                sEndAsyncSection = Trace.class.getMethod("endAsyncSection", String.class, int.class);
+            } catch (NoSuchMethodException e) {
+                sBeginAsyncSection = null;
+                sEndAsyncSection = null;
+            }
+        }
+        Method method = begin ? sBeginAsyncSection : sEndAsyncSection;
+        if (method == null) return;
+        try {
+            method.invoke(null, name, cookie);
+        } catch (Exception ignored) {
+            // Tracing is best effort
+        }
+    }
+}
@@ -17,6 +17,9 @@
 package com.wdullaer.swipeactionadapter;
 
 import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.support.annotation.ColorInt;
 import android.support.annotation.NonNull;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
@@ -33,6 +36,9 @@ import java.util.Map;
  * Created by wdullaer on 22.06.14.
  */
 public class SwipeViewGroup extends FrameLayout implements Checkable {
+    private static final float DIM_ALPHA = 0.4f;
+    private static final int DEFAULT_DIM_COLOR = 0x99FFFFFF;
+
     private View contentView = null;
 
     private SwipeDirection visibleView = SwipeDirection.DIRECTION_NEUTRAL;
@@ -40,6 +46,15 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
     private OnTouchListener swipeTouchListener;
     private boolean checked;
     private boolean activated;
+    private RenderMode mRenderMode = RenderMode.ALPHA;
+    private boolean mDimmed = false;
+    private final Paint mDimPaint = new Paint();
+    private boolean mContentLayerAcquired = false;
+    private boolean mBound = false;
+    private long mBoundId;
+    private long mBoundVersion;
+    private int mBoundGeneration;
+    private Runnable mBackgroundLoader;
 
     public SwipeViewGroup(Context context) {
         super(context);
@@ -63,6 +78,7 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
         // Allows click events to reach the ListView in case the row has a clickable View like a Button
         // FIXME: probably messes with accessibility. Doesn't fix root cause (see onTouchEvent)
         setDescendantFocusability(FOCUS_BLOCK_DESCENDANTS);
+        mDimPaint.setColor(DEFAULT_DIM_COLOR);
     }
 
     /**
@@ -82,6 +98,36 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
         return this;
     }
 
+    /**
+     * Swap a placeholder background for the real one, in the same place and state.
+     * Nothing happens if the placeholder was already replaced by another background.
+     *
+     * @param direction The key of the background
+     * @param placeholder The View that stands in for the background
+     * @param background The View to show instead
+     */
+    void replaceBackground(SwipeDirection direction, View placeholder, View background){
+        if(mBackgroundMap.get(direction) != placeholder) return;
+
+        background.setVisibility(placeholder.getVisibility());
+        background.setTranslationX(placeholder.getTranslationX());
+        background.setAlpha(placeholder.getAlpha());
+        // Keep it below the contentView
+        addView(background, indexOfChild(placeholder));
+        removeView(placeholder);
+        mBackgroundMap.put(direction, background);
+    }
+
+    /**
+     * Set what loads the real backgrounds while the row still has placeholders. It runs, once,
+     * when a background is shown before the real ones were swapped in.
+     *
+     * @param loader Swaps the placeholders for the real backgrounds, or null once they were
+     */
+    void setBackgroundLoader(Runnable loader){
+        mBackgroundLoader = loader;
+    }
+
     /**
      * Show the View linked to a key. Don't do anything if the key is not found
      *
@@ -89,18 +135,101 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
      * @param dimBackground Indicates whether the background should be dimmed
      */
     public void showBackground(SwipeDirection direction, boolean dimBackground){
+        if(SwipeDirection.DIRECTION_NEUTRAL != direction && mBackgroundLoader != null) {
+            Runnable loader = mBackgroundLoader;
+            mBackgroundLoader = null;
+            loader.run();
+        }
         if(SwipeDirection.DIRECTION_NEUTRAL != direction && mBackgroundMap.get(direction) == null) return;
 
         if(SwipeDirection.DIRECTION_NEUTRAL != visibleView)
             mBackgroundMap.get(visibleView).setVisibility(View.INVISIBLE);
         if(SwipeDirection.DIRECTION_NEUTRAL != direction) {
             mBackgroundMap.get(direction).setVisibility(View.VISIBLE);
-            mBackgroundMap.get(direction).setAlpha(dimBackground ? 0.4f : 1);
+            if(mRenderMode == RenderMode.ALPHA) {
+                mBackgroundMap.get(direction).setAlpha(dimBackground ? DIM_ALPHA : 1);
+            } else if(mDimmed != dimBackground) {
+                mDimmed = dimBackground;
+                invalidate();
+            }
+        } else {
+            mDimmed = false;
+            releaseContentLayer();
+            // Swiped in backgrounds no longer need to draw outside of the row
+            setClipChildren(true);
         }
 
         visibleView = direction;
     }
 
+    /**
+     * Set how dimming and fading should be drawn
+     *
+     * @param renderMode OVERLAY to avoid offscreen composition, ALPHA for the legacy behaviour
+     * @return A reference to the layout so commands can be chained
+     */
+    public SwipeViewGroup setRenderMode(@NonNull RenderMode renderMode) {
+        if(mRenderMode == renderMode) return this;
+        mRenderMode = renderMode;
+        // Reset whatever the previous mode left behind
+        mDimmed = false;
+        for(View background : mBackgroundMap.values()) background.setAlpha(1);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Set the colour of the scrim that is drawn over a dimmed background in OVERLAY mode.
+     * It should be translucent: the default is 60% white, which matches the ALPHA mode on a
+     * light list background.
+     *
+     * @param color The colour of the scrim
+     * @return A reference to the layout so commands can be chained
+     */
+    public SwipeViewGroup setDimColor(@ColorInt int color) {
+        mDimPaint.setColor(color);
+        if(mDimmed) invalidate();
+        return this;
+    }
+
+    /**
+     * Prepare the contentView for an alpha animation. In OVERLAY mode it is drawn from a hardware
+     * layer until the neutral background is shown again, so changing its alpha only recomposes
+     * the layer instead of redrawing the contentView into an offscreen buffer.
+     */
+    void acquireContentLayer() {
+        if(mRenderMode != RenderMode.OVERLAY || mContentLayerAcquired || contentView == null) return;
+        if(contentView.getLayerType() != LAYER_TYPE_NONE) return;
+        contentView.setLayerType(LAYER_TYPE_HARDWARE, null);
+        mContentLayerAcquired = true;
+    }
+
+    private void releaseContentLayer() {
+        if(!mContentLayerAcquired) return;
+        mContentLayerAcquired = false;
+        if(contentView != null) contentView.setLayerType(LAYER_TYPE_NONE, null);
+    }
+
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        boolean result = super.drawChild(canvas, child, drawingTime);
+        // Draw the scrim right on top of the visible background, so it stays below the contentView
+        if(mDimmed && SwipeDirection.DIRECTION_NEUTRAL != visibleView && child == mBackgroundMap.get(visibleView)) {
+            float left = child.getLeft() + child.getTranslationX();
+            canvas.drawRect(left, child.getTop(), left + child.getWidth(), child.getBottom(), mDimPaint);
+        }
+        return result;
+    }
+
+    /**
+     * In OVERLAY mode the backgrounds and the contentView are treated as not overlapping, so a
+     * fading SwipeViewGroup can be drawn without an offscreen buffer
+     */
+    @Override
+    public boolean hasOverlappingRendering() {
+        return mRenderMode == RenderMode.ALPHA && super.hasOverlappingRendering();
+    }
+
     /**
      * Add a contentView to the Layout
      *
@@ -108,6 +237,7 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
      * @return A reference to the layout so commands can be chained
      */
     public SwipeViewGroup setContentView(View contentView){
+        if(contentView != this.contentView) mBound = false;
         if(this.contentView != null) removeView(contentView);
         addView(contentView);
         this.contentView = contentView;
@@ -125,7 +255,8 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
     }
 
     /**
-     * Move all backgrounds to the edge of the Layout so they can be swiped in
+     * Move all backgrounds to the edge of the Layout so they can be swiped in.
+     * The Layout draws outside of its bounds until the neutral background is shown again.
      */
     public void translateBackgrounds(){
         this.setClipChildren(false);
@@ -135,6 +266,37 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
         }
     }
 
+    /**
+     * Remember which version of which item the contentView shows
+     */
+    void setBinding(long id, long version, int generation){
+        mBound = true;
+        mBoundId = id;
+        mBoundVersion = version;
+        mBoundGeneration = generation;
+    }
+
+    /**
+     * Forget what the contentView shows, so it is bound again the next time
+     */
+    void clearBinding(){
+        mBound = false;
+    }
+
+    /**
+     * @return true if the contentView already shows this version of the item
+     */
+    boolean isBoundTo(long id, long version, int generation){
+        return mBound && mBoundId == id && mBoundVersion == version && mBoundGeneration == generation;
+    }
+
+    /**
+     * Put all backgrounds back in place, behind the contentView
+     */
+    void resetBackgrounds(){
+        for(View background : mBackgroundMap.values()) background.setTranslationX(0);
+    }
+
     /**
      * Set a touch listener the SwipeViewGroup will watch: once the OnTouchListener is interested in
      * events, the SwipeViewGroup will stop propagating touch events to its children
@@ -172,13 +334,13 @@ public class SwipeViewGroup extends FrameLayout implements Checkable {
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
         // Start tracking the touch when a child is processing it
-        return super.onInterceptTouchEvent(ev) || swipeTouchListener.onTouch(this, ev);
+        return super.onInterceptTouchEvent(ev) || (swipeTouchListener != null && swipeTouchListener.onTouch(this, ev));
     }
 
     @Override
     public boolean onTouchEvent(@NonNull MotionEvent ev) {
         // Finish the swipe gesture: our parent will no longer do it if this function is called
-        return swipeTouchListener.onTouch(this, ev);
+        return swipeTouchListener != null && swipeTouchListener.onTouch(this, ev);
     }
 
     @Override
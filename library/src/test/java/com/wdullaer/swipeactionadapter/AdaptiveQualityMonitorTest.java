@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveQualityMonitorTest {
+    private static final long FRAME = 16666667;
+
+    private boolean mBusy;
+    private final List<SwipeQuality> mApplied = new ArrayList<>();
+    private AdaptiveQualityMonitor mMonitor;
+    private long mTime;
+
+    @Before
+    public void setUp() {
+        mMonitor = new AdaptiveQualityMonitor(new AdaptiveQualityMonitor.Host() {
+            @Override
+            public boolean isBusy() {
+                return mBusy;
+            }
+
+            @Override
+            public void onQualityChanged(SwipeQuality quality, boolean degraded) {
+                // The effects must not change under a running gesture
+                assertFalse(mBusy);
+                mApplied.add(quality);
+            }
+        });
+        mMonitor.start(new ManualAnimationDriver());
+        mBusy = true;
+    }
+
+    @Test
+    public void degradedQualityWaitsUntilIdle() {
+        // Every other frame is missed
+        frames(60, 2);
+        assertTrue(mMonitor.isChangePending());
+        assertTrue(mApplied.isEmpty());
+        assertEquals(SwipeQuality.FULL, mMonitor.getQuality());
+
+        mBusy = false;
+        frames(1, 1);
+        assertEquals(1, mApplied.size());
+        assertFalse(mMonitor.isChangePending());
+        assertEquals(mApplied.get(0), mMonitor.getQuality());
+        assertTrue(mMonitor.getQuality().compareTo(SwipeQuality.FULL) > 0);
+    }
+
+    @Test
+    public void severalStepsDuringOneGestureAreAppliedAtOnce() {
+        frames(300, 3);
+        mBusy = false;
+        frames(1, 1);
+        assertEquals(1, mApplied.size());
+        assertTrue(mApplied.get(0).ordinal() > 1);
+    }
+
+    @Test
+    public void healthyFramesRestoreTheQuality() {
+        frames(60, 2);
+        mBusy = false;
+        frames(1, 1);
+        SwipeQuality degraded = mMonitor.getQuality();
+
+        mBusy = true;
+        frames(200, 1);
+        mBusy = false;
+        frames(1, 1);
+        assertTrue(mMonitor.getQuality().compareTo(degraded) < 0);
+    }
+
+    @Test
+    public void idleTimeIsNotAMissedFrame() {
+        frames(10, 1);
+        mBusy = false;
+        frames(1, 1);
+        // A long pause between two gestures
+        mTime += 1000 * FRAME;
+        mBusy = true;
+        frames(100, 1);
+        assertFalse(mMonitor.isChangePending());
+        assertEquals(SwipeQuality.FULL, mMonitor.getQuality());
+    }
+
+    @Test
+    public void resetGoesBackToFullQuality() {
+        frames(60, 2);
+        mMonitor.reset();
+        assertFalse(mMonitor.isChangePending());
+        assertEquals(SwipeQuality.FULL, mMonitor.getQuality());
+    }
+
+    /**
+     * Deliver frames to the monitor
+     *
+     * @param count the amount of frames that are drawn
+     * @param stride the amount of frame intervals between two drawn frames
+     */
+    private void frames(int count, int stride) {
+        for (int i = 0; i < count; i++) {
+            mTime += stride * FRAME;
+            mMonitor.doFrame(mTime);
+        }
+    }
+}
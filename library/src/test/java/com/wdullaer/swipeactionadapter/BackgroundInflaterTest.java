@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Backgrounds inflated on an executor: rows must end up with their real backgrounds, whatever the
+ * executor does, and every background is counted once
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class BackgroundInflaterTest {
+    private static final int BACKGROUNDS = 2;
+
+    private final List<Runnable> mTasks = new ArrayList<>();
+    private boolean mReject = false;
+    private ListView mListView;
+    private SwipeActionAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mListView = new ListView(RuntimeEnvironment.application);
+        mAdapter = new SwipeActionAdapter(new ArrayAdapter<>(RuntimeEnvironment.application,
+                android.R.layout.simple_list_item_1, TestLists.items(30)));
+        mAdapter.addBackground(SwipeDirection.DIRECTION_NORMAL_LEFT, android.R.layout.simple_list_item_1)
+                .addBackground(SwipeDirection.DIRECTION_NORMAL_RIGHT, android.R.layout.simple_list_item_1)
+                .setSwipeActionListener(new TestLists.RecordingListener())
+                .setAsyncInflation(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        if (mReject) throw new RejectedExecutionException();
+                        mTasks.add(command);
+                    }
+                })
+                .setListView(mListView);
+        mListView.setAdapter(mAdapter);
+    }
+
+    @Test
+    public void rowSwipedBeforeItsBackgroundsArriveLoadsThem() {
+        TestLists.layout(mListView);
+        SwipeViewGroup row = (SwipeViewGroup) mListView.getChildAt(0);
+        assertEquals(0, realBackgrounds(row));
+
+        row.showBackground(SwipeDirection.DIRECTION_NORMAL_LEFT, false);
+        assertEquals(BACKGROUNDS, realBackgrounds(row));
+        assertEquals(BACKGROUNDS, mAdapter.getDebugReport().inflatedBackgrounds);
+
+        // The executor gets to it late: it leaves the loaded row alone
+        runTasks();
+        assertEquals(BACKGROUNDS, realBackgrounds(row));
+        assertEquals(BACKGROUNDS + 1, row.getChildCount());
+        int rows = mListView.getChildCount();
+        assertEquals(rows * BACKGROUNDS, mAdapter.getDebugReport().inflatedBackgrounds);
+        for (int i = 0; i < rows; i++) {
+            assertEquals("row " + i, BACKGROUNDS, realBackgrounds((SwipeViewGroup) mListView.getChildAt(i)));
+        }
+    }
+
+    @Test
+    public void rejectedInflationHappensOnTheMainThread() {
+        mReject = true;
+        TestLists.layout(mListView);
+        ShadowLooper.idleMainLooper();
+        for (int i = 0; i < mListView.getChildCount(); i++) {
+            assertEquals("row " + i, BACKGROUNDS, realBackgrounds((SwipeViewGroup) mListView.getChildAt(i)));
+        }
+
+        // The inflater must not think it is still draining
+        mReject = false;
+        mAdapter.prebuildRows(3);
+        assertEquals(1, mTasks.size());
+    }
+
+    @Test
+    public void prebuiltRowsAreNotCountedAsCreated() {
+        mAdapter.prebuildRows(3);
+        runTasks();
+        TestLists.layout(mListView);
+        runTasks();
+
+        SwipeDebugReport report = mAdapter.getDebugReport();
+        int rows = mListView.getChildCount();
+        assertEquals(3, report.wrappersPooled);
+        assertEquals(rows - 3, report.wrappersCreated);
+        assertEquals(rows * BACKGROUNDS, report.inflatedBackgrounds);
+    }
+
+    private void runTasks() {
+        while (!mTasks.isEmpty()) mTasks.remove(0).run();
+        ShadowLooper.idleMainLooper();
+    }
+
+    /**
+     * @return the amount of backgrounds of the row that were inflated from their layout
+     */
+    private static int realBackgrounds(SwipeViewGroup row) {
+        int count = 0;
+        for (int i = 0; i < row.getChildCount(); i++) {
+            View child = row.getChildAt(i);
+            if (child != row.getContentView() && child instanceof TextView) count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * What the ListView and its rows draw: rows only draw outside their bounds, and backgrounds only
+ * draw under the content, while a row is being swiped
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class ClippingTest {
+    private static final int ROW = 3;
+
+    private ListView mListView;
+    private SwipeActionAdapter mAdapter;
+    private ManualAnimationDriver mDriver;
+
+    @Before
+    public void setUp() {
+        mListView = new ListView(RuntimeEnvironment.application);
+        mAdapter = new SwipeActionAdapter(new ArrayAdapter<>(RuntimeEnvironment.application,
+                android.R.layout.simple_list_item_1, TestLists.items(30)));
+        mAdapter.addBackground(SwipeDirection.DIRECTION_NORMAL_LEFT, android.R.layout.simple_list_item_1)
+                .addBackground(SwipeDirection.DIRECTION_NORMAL_RIGHT, android.R.layout.simple_list_item_1)
+                .setSwipeActionListener(new TestLists.RecordingListener())
+                .setListView(mListView);
+        mListView.setAdapter(mAdapter);
+        mDriver = new ManualAnimationDriver();
+        mAdapter.setAnimationDriver(mDriver);
+        TestLists.layout(mListView);
+    }
+
+    @Test
+    public void idleListIsClippedAndDrawsNoBackgrounds() {
+        assertIdle();
+    }
+
+    @Test
+    public void swipeInRowDrawsUnclippedOnlyWhileItMoves() {
+        startSwipe(-100);
+        assertFalse(mListView.getClipChildren());
+        SwipeViewGroup row = row();
+        assertFalse(row.getClipChildren());
+        assertEquals(1, visibleBackgrounds(row));
+
+        release(-100);
+        mDriver.runUntilIdle();
+        assertIdle();
+    }
+
+    @Test
+    public void clippingIsRestoredAfterADismiss() {
+        startSwipe(-0.7f * TestLists.WIDTH);
+        release(-0.7f * TestLists.WIDTH);
+        // Still sliding out
+        mDriver.advance(16);
+        assertFalse(mListView.getClipChildren());
+        mDriver.runUntilIdle();
+        TestLists.layout(mListView);
+        assertIdle();
+    }
+
+    @Test
+    public void programmaticDismissRestoresClipping() {
+        mAdapter.dismiss(new int[]{1, 2}, SwipeDirection.DIRECTION_NORMAL_RIGHT);
+        mDriver.advance(16);
+        assertFalse(mListView.getClipChildren());
+        mDriver.runUntilIdle();
+        TestLists.layout(mListView);
+        assertIdle();
+    }
+
+    @Test
+    public void fixedBackgroundsNeverUnclipTheList() {
+        mAdapter.setFixedBackgrounds(true);
+        startSwipe(-100);
+        assertTrue(mListView.getClipChildren());
+        assertEquals(1, visibleBackgrounds(row()));
+        release(-100);
+        mDriver.runUntilIdle();
+        assertIdle();
+    }
+
+    @Test
+    public void clippingTurnedOffByTheAppIsLeftAlone() {
+        mListView.setClipChildren(false);
+        startSwipe(-100);
+        release(-100);
+        mDriver.runUntilIdle();
+        assertFalse(mListView.getClipChildren());
+    }
+
+    private void assertIdle() {
+        assertTrue(mListView.getClipChildren());
+        for (int i = 0; i < mListView.getChildCount(); i++) {
+            SwipeViewGroup row = (SwipeViewGroup) mListView.getChildAt(i);
+            assertTrue("row " + i, row.getClipChildren());
+            assertEquals("row " + i, 0, visibleBackgrounds(row));
+        }
+    }
+
+    private SwipeViewGroup row() {
+        return (SwipeViewGroup) mListView.getChildAt(ROW);
+    }
+
+    /**
+     * @return the amount of children of the row other than its content that would be drawn
+     */
+    private static int visibleBackgrounds(SwipeViewGroup row) {
+        int visible = 0;
+        for (int i = 0; i < row.getChildCount(); i++) {
+            View child = row.getChildAt(i);
+            if (child != row.getContentView() && child.getVisibility() == View.VISIBLE) visible++;
+        }
+        return visible;
+    }
+
+    private void startSwipe(float distance) {
+        View child = row();
+        float y = child.getTop() + child.getHeight() / 2f;
+        TestLists.touch(mAdapter, 0, mDriver.uptimeMillis(), MotionEvent.ACTION_DOWN, TestLists.WIDTH / 2f, y);
+        for (int i = 1; i <= 4; i++) {
+            mDriver.advance(16);
+            TestLists.touch(mAdapter, 0, mDriver.uptimeMillis(), MotionEvent.ACTION_MOVE,
+                    TestLists.WIDTH / 2f + distance * i / 4, y);
+        }
+    }
+
+    private void release(float distance) {
+        View child = row();
+        float y = child.getTop() + child.getHeight() / 2f;
+        mDriver.advance(16);
+        TestLists.touch(mAdapter, 0, mDriver.uptimeMillis(), MotionEvent.ACTION_UP, TestLists.WIDTH / 2f + distance, y);
+    }
+}
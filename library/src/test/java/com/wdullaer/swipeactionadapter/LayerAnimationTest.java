@@ -0,0 +1,159 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.app.Activity;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Slides run by a ViewPropertyAnimator on a hardware layer, on the main looper: a touch or a
+ * cancel stops them without their end action, and the list gets its clipping back
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class LayerAnimationTest {
+    private static final int ROW = 3;
+    private static final int FRAME_TIME = 16;
+    private static final long ANIMATION_TIME = 200;
+
+    private ListView mListView;
+    private TestLists.RecordingListener mListener;
+    private SwipeActionAdapter mAdapter;
+    private long mTime = 0;
+
+    @Before
+    public void setUp() {
+        // Frames must take time on the virtual clock, or the slides end as soon as they start
+        ShadowChoreographer.setPostFrameCallbackDelay(FRAME_TIME);
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        mListView = new ListView(activity);
+        mListener = new TestLists.RecordingListener();
+        mAdapter = new SwipeActionAdapter(new ArrayAdapter<>(activity,
+                android.R.layout.simple_list_item_1, TestLists.items(30)));
+        mAdapter.addBackground(SwipeDirection.DIRECTION_NORMAL_LEFT, android.R.layout.simple_list_item_1)
+                .setSwipeActionListener(mListener)
+                .setLayerAnimations(true)
+                .setAnimationDuration(ANIMATION_TIME)
+                .setListView(mListView);
+        mListView.setAdapter(mAdapter);
+        activity.setContentView(mListView);
+        // Windows under Robolectric are never hardware accelerated
+        Object attachInfo = ReflectionHelpers.getField(mListView, "mAttachInfo");
+        ReflectionHelpers.setField(attachInfo, "mHardwareAccelerated", true);
+        TestLists.layout(mListView);
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @After
+    public void tearDown() {
+        ShadowLooper.unPauseMainLooper();
+        ShadowChoreographer.setPostFrameCallbackDelay(0);
+    }
+
+    @Test
+    public void slideEndsWithItsEndAction() {
+        swipe(-100);
+        View row = mListView.getChildAt(ROW);
+        assertEquals(1, mAdapter.getTouchListener().getRunningAnimationCount());
+        assertFalse(mListView.getClipChildren());
+
+        ShadowLooper.idleMainLooper(2 * ANIMATION_TIME, TimeUnit.MILLISECONDS);
+        assertEquals(0, mAdapter.getTouchListener().getRunningAnimationCount());
+        assertEquals(0f, row.getTranslationX(), 0f);
+        assertTrue(mListView.getClipChildren());
+    }
+
+    @Test
+    public void touchTakesTheSlidingRowOver() {
+        swipe(-100);
+        ShadowLooper.idleMainLooper(ANIMATION_TIME / 2, TimeUnit.MILLISECONDS);
+        View row = mListView.getChildAt(ROW);
+        float translation = row.getTranslationX();
+        assertTrue(translation < 0);
+
+        touch(MotionEvent.ACTION_DOWN, TestLists.WIDTH / 2f);
+        assertEquals(0, mAdapter.getTouchListener().getRunningAnimationCount());
+        ShadowLooper.idleMainLooper(2 * ANIMATION_TIME, TimeUnit.MILLISECONDS);
+        // The cancelled animator leaves the row where the touch found it
+        assertEquals(translation, row.getTranslationX(), 0f);
+    }
+
+    @Test
+    public void cancelledSlideRestoresTheClipping() {
+        // Far enough to slide out, which asks shouldDismiss when it ends
+        swipe(-0.35f * TestLists.WIDTH);
+        ShadowLooper.idleMainLooper(ANIMATION_TIME / 2, TimeUnit.MILLISECONDS);
+        assertFalse(mListView.getClipChildren());
+
+        mAdapter.getTouchListener().cancelAnimations(false);
+        assertEquals(0, mAdapter.getTouchListener().getRunningAnimationCount());
+        assertTrue(mListView.getClipChildren());
+        View row = mListView.getChildAt(ROW);
+        assertEquals(0f, row.getTranslationX(), 0f);
+
+        // The end action of the animator must not run after the cancel
+        ShadowLooper.idleMainLooper(2 * ANIMATION_TIME, TimeUnit.MILLISECONDS);
+        assertEquals(0, mListener.decisions);
+        assertEquals(0, mListener.swipes());
+        assertEquals(0, mAdapter.getTouchListener().getDismissAnimationRefCount());
+        assertEquals(0f, row.getTranslationX(), 0f);
+    }
+
+    /**
+     * Swipe the row horizontally and let go
+     */
+    private void swipe(float distance) {
+        touch(MotionEvent.ACTION_DOWN, TestLists.WIDTH / 2f);
+        for (int i = 1; i <= 4; i++) touch(MotionEvent.ACTION_MOVE, TestLists.WIDTH / 2f + distance * i / 4);
+        // Hold still before letting go, so the release is not a fling
+        mTime += 200;
+        touch(MotionEvent.ACTION_UP, TestLists.WIDTH / 2f + distance);
+    }
+
+    /**
+     * Touch the row at a horizontal position in the list. The list is below the decor of the
+     * window, so the raw coordinates of the event are offset by its location on screen.
+     */
+    private void touch(int action, float x) {
+        View child = mListView.getChildAt(ROW);
+        int[] location = new int[2];
+        mListView.getLocationOnScreen(location);
+        mTime += FRAME_TIME;
+        TestLists.touch(mAdapter, 0, mTime, action, location[0] + x,
+                location[1] + child.getTop() + child.getHeight() / 2f);
+    }
+}
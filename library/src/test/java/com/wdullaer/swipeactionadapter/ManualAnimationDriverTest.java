@@ -0,0 +1,269 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ManualAnimationDriverTest {
+    private ManualAnimationDriver mDriver;
+    private List<String> mEvents;
+
+    @Before
+    public void setUp() {
+        mDriver = new ManualAnimationDriver(16);
+        mEvents = new ArrayList<>();
+    }
+
+    @Test
+    public void animationStartsOnTheNextFrame() {
+        Recorder animation = new Recorder("a");
+        mDriver.start(64, animation);
+        assertTrue(animation.fractions.isEmpty());
+
+        mDriver.advance(16);
+        assertEquals(Arrays.asList(0f), animation.fractions);
+        mDriver.advance(32);
+        assertEquals(Arrays.asList(0f, 0.25f, 0.5f), animation.fractions);
+        assertEquals(1, mDriver.getRunningCount());
+    }
+
+    @Test
+    public void animationEndsOnceAtTheFullFraction() {
+        Recorder animation = new Recorder("a");
+        mDriver.start(40, animation);
+        int frames = mDriver.runUntilIdle();
+
+        assertEquals(4, frames);
+        assertEquals(1f, animation.fractions.get(animation.fractions.size() - 1), 0f);
+        assertEquals(Arrays.asList("a:end"), mEvents);
+        assertEquals(0, mDriver.getRunningCount());
+        assertTrue(mDriver.isIdle());
+    }
+
+    @Test
+    public void zeroDurationEndsOnTheFirstFrame() {
+        Recorder animation = new Recorder("a");
+        mDriver.start(0, animation);
+        mDriver.advance(16);
+        assertEquals(Arrays.asList(1f), animation.fractions);
+        assertEquals(Arrays.asList("a:end"), mEvents);
+    }
+
+    @Test
+    public void cancelEndsRightAwayAndStopsUpdates() {
+        Recorder animation = new Recorder("a");
+        int handle = mDriver.start(100, animation);
+        mDriver.advance(32);
+        mDriver.cancel(handle);
+
+        assertEquals(Arrays.asList("a:cancel"), mEvents);
+        int updates = animation.fractions.size();
+        mDriver.advance(200);
+        assertEquals(updates, animation.fractions.size());
+        // Cancelling again does nothing
+        mDriver.cancel(handle);
+        assertEquals(1, mEvents.size());
+    }
+
+    @Test
+    public void animationCanCancelItselfFromItsUpdate() {
+        final int[] handle = new int[1];
+        Recorder animation = new Recorder("a") {
+            @Override
+            public void onUpdate(float fraction) {
+                super.onUpdate(fraction);
+                if (fraction >= 0.5f) mDriver.cancel(handle[0]);
+            }
+        };
+        handle[0] = mDriver.start(32, animation);
+        mDriver.runUntilIdle();
+        assertEquals(Arrays.asList("a:cancel"), mEvents);
+    }
+
+    @Test
+    public void cancellingAnotherAnimationDuringAFrameKeepsTheRestRunning() {
+        final Recorder victim = new Recorder("victim");
+        final int victimHandle = mDriver.start(100, victim);
+        Recorder killer = new Recorder("killer") {
+            @Override
+            public void onUpdate(float fraction) {
+                super.onUpdate(fraction);
+                mDriver.cancel(victimHandle);
+            }
+        };
+        mDriver.start(100, killer);
+        Recorder bystander = new Recorder("bystander");
+        mDriver.start(100, bystander);
+
+        mDriver.advance(16);
+        assertEquals(Arrays.asList("victim:cancel"), mEvents);
+        mDriver.runUntilIdle();
+        assertEquals(Arrays.asList("victim:cancel", "killer:end", "bystander:end"), mEvents);
+        assertEquals(1f, bystander.fractions.get(bystander.fractions.size() - 1), 0f);
+    }
+
+    @Test
+    public void animationsThatFinishInTheSameFrameEndAfterAllUpdates() {
+        mDriver.start(32, new Recorder("a", true));
+        mDriver.start(32, new Recorder("b", true));
+        mDriver.runUntilIdle();
+
+        int lastUpdate = Math.max(mEvents.lastIndexOf("a:1.0"), mEvents.lastIndexOf("b:1.0"));
+        int firstEnd = Math.min(mEvents.indexOf("a:end"), mEvents.indexOf("b:end"));
+        assertTrue(lastUpdate < firstEnd);
+    }
+
+    @Test
+    public void animationStartedWhenAnotherEndsStartsOnTheNextFrame() {
+        final Recorder second = new Recorder("second");
+        mDriver.start(16, new Recorder("first") {
+            @Override
+            public void onEnd(boolean cancelled) {
+                super.onEnd(cancelled);
+                mDriver.start(16, second);
+            }
+        });
+        mDriver.advance(32);
+        assertTrue(second.fractions.isEmpty());
+        mDriver.advance(16);
+        assertEquals(Arrays.asList(0f), second.fractions);
+    }
+
+    @Test
+    public void frameCallbacksRunOnceBeforeTheAnimations() {
+        mDriver.start(16, new Recorder("a", true));
+        mDriver.postFrameCallback(new SwipeAnimationDriver.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mEvents.add("callback:" + frameTimeNanos);
+            }
+        });
+        mDriver.advance(16);
+        assertEquals(Arrays.asList("callback:16000000", "a:0.0"), mEvents);
+        mDriver.advance(16);
+        assertEquals(Arrays.asList("callback:16000000", "a:0.0", "a:1.0", "a:end"), mEvents);
+    }
+
+    @Test
+    public void frameCallbackPostedFromACallbackRunsOnTheNextFrame() {
+        mDriver.postFrameCallback(new SwipeAnimationDriver.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mEvents.add("first");
+                mDriver.postFrameCallback(new SwipeAnimationDriver.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        mEvents.add("second");
+                    }
+                });
+            }
+        });
+        mDriver.advance(16);
+        assertEquals(Arrays.asList("first"), mEvents);
+        assertFalse(mDriver.isIdle());
+        mDriver.advance(16);
+        assertEquals(Arrays.asList("first", "second"), mEvents);
+        assertTrue(mDriver.isIdle());
+    }
+
+    @Test
+    public void removedFrameCallbackDoesNotRun() {
+        SwipeAnimationDriver.FrameCallback callback = new SwipeAnimationDriver.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mEvents.add("callback");
+            }
+        };
+        mDriver.postFrameCallback(callback);
+        mDriver.removeFrameCallback(callback);
+        mDriver.advance(16);
+        assertTrue(mEvents.isEmpty());
+    }
+
+    @Test
+    public void advanceOnlyProducesWholeFrames() {
+        Recorder animation = new Recorder("a");
+        mDriver.start(100, animation);
+        mDriver.advance(10);
+        assertEquals(10, mDriver.uptimeMillis());
+        assertTrue(animation.fractions.isEmpty());
+        mDriver.advance(6);
+        assertEquals(1, animation.fractions.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void runUntilIdleGivesUpOnEndlessCallbacks() {
+        mDriver.postFrameCallback(new SwipeAnimationDriver.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                mDriver.postFrameCallback(this);
+            }
+        });
+        mDriver.runUntilIdle();
+    }
+
+    @Test
+    public void manyAnimationsRunWithoutWaitingOnTheClock() {
+        // A thousand overlapping animations of a second each settle without real time passing
+        Recorder[] animations = new Recorder[1000];
+        for (int i = 0; i < animations.length; i++) {
+            animations[i] = new Recorder("a" + i);
+            mDriver.start(1000, animations[i]);
+            mDriver.advance(1);
+        }
+        mDriver.runUntilIdle();
+        assertEquals(animations.length, mEvents.size());
+        for (Recorder animation : animations) {
+            assertEquals(1f, animation.fractions.get(animation.fractions.size() - 1), 0f);
+        }
+    }
+
+    private class Recorder implements SwipeAnimationDriver.Animation {
+        final String name;
+        final boolean logUpdates;
+        final List<Float> fractions = new ArrayList<>();
+
+        Recorder(String name) {
+            this(name, false);
+        }
+
+        Recorder(String name, boolean logUpdates) {
+            this.name = name;
+            this.logUpdates = logUpdates;
+        }
+
+        @Override
+        public void onUpdate(float fraction) {
+            fractions.add(fraction);
+            if (logUpdates) mEvents.add(name + ":" + fraction);
+        }
+
+        @Override
+        public void onEnd(boolean cancelled) {
+            mEvents.add(name + (cancelled ? ":cancel" : ":end"));
+        }
+    }
+}
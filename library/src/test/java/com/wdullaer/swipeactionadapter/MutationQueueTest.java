@@ -0,0 +1,210 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Changes offered from any thread are applied in batches on the main thread, only when it is safe,
+ * and the actions that wait for their animations move along with their items
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class MutationQueueTest {
+    private static final long ANIMATION_TIME = 200;
+
+    private final List<Integer> mApplied = new ArrayList<>();
+    private final List<Thread> mAppliedOn = new ArrayList<>();
+    private int mBatches = 0;
+    private boolean mSafe = true;
+    private ManualAnimationDriver mDriver;
+    private MutationQueue mQueue;
+
+    @Before
+    public void setUp() {
+        mDriver = new ManualAnimationDriver();
+        mQueue = new MutationQueue(new MutationQueue.Host() {
+            @Override
+            public boolean isSafeToMutate() {
+                return mSafe;
+            }
+
+            @Override
+            public void applyMutation(int type, int sourcePosition, int count, Runnable change) {
+                mApplied.add(sourcePosition);
+                mAppliedOn.add(Thread.currentThread());
+                change.run();
+            }
+
+            @Override
+            public void onMutationsApplied() {
+                mBatches++;
+            }
+
+            @Override
+            public SwipeAnimationDriver getFrameDriver() {
+                return mDriver;
+            }
+        });
+    }
+
+    @Test
+    public void changesAreAppliedInOrderInOneBatch() {
+        ShadowLooper.pauseMainLooper();
+        final int[] changes = new int[1];
+        for (int i = 0; i < 3; i++) {
+            mQueue.offer(MutationQueue.UPDATE, i, 1, new Runnable() {
+                @Override
+                public void run() {
+                    changes[0]++;
+                }
+            });
+        }
+        assertEquals(3, mQueue.size());
+        ShadowLooper.unPauseMainLooper();
+
+        assertEquals(0, mQueue.size());
+        assertEquals(3, changes[0]);
+        assertEquals(1, mBatches);
+        assertEquals(0, (int) mApplied.get(0));
+        assertEquals(2, (int) mApplied.get(2));
+    }
+
+    @Test
+    public void changesWaitUntilItIsSafe() {
+        mSafe = false;
+        offer(7);
+        ShadowLooper.idleMainLooper();
+        mDriver.advance(16);
+        assertTrue(mApplied.isEmpty());
+        assertEquals(1, mQueue.size());
+
+        // Offered while waiting: goes in the same batch
+        offer(8);
+        mSafe = true;
+        mDriver.advance(16);
+        ShadowLooper.idleMainLooper();
+        assertEquals(2, mApplied.size());
+        assertEquals(1, mBatches);
+    }
+
+    @Test
+    public void changesFromOtherThreadsAreAppliedOnTheMainThread() throws InterruptedException {
+        ShadowLooper.pauseMainLooper();
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            producers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 100; i++) offer(i);
+                }
+            });
+            producers[t].start();
+        }
+        for (Thread producer : producers) producer.join();
+        ShadowLooper.unPauseMainLooper();
+        ShadowLooper.idleMainLooper();
+
+        assertEquals(400, mApplied.size());
+        for (Thread thread : mAppliedOn) assertEquals(Thread.currentThread(), thread);
+    }
+
+    @Test
+    public void pendingActionBehindARemovedItemKeepsItsPositionWithAHeader() {
+        Fixture fixture = new Fixture();
+        fixture.swipeAndRemove(4);
+        // Only the item behind the swiped one is gone
+        assertArrayEquals(new int[]{4}, fixture.listener.positions.get(0));
+    }
+
+    @Test
+    public void pendingActionOnARemovedItemIsInvalidWithAHeader() {
+        Fixture fixture = new Fixture();
+        fixture.swipeAndRemove(3);
+        assertArrayEquals(new int[]{ListView.INVALID_POSITION}, fixture.listener.positions.get(0));
+    }
+
+    @Test
+    public void pendingActionBeforeARemovedItemMovesUpWithAHeader() {
+        Fixture fixture = new Fixture();
+        fixture.swipeAndRemove(0);
+        assertArrayEquals(new int[]{3}, fixture.listener.positions.get(0));
+    }
+
+    private void offer(int position) {
+        mQueue.offer(MutationQueue.UPDATE, position, 1, new Runnable() {
+            @Override
+            public void run() {}
+        });
+    }
+
+    /**
+     * A list with a header view, whose fifth child (source item 3) is swiped and slides back
+     */
+    private static final class Fixture {
+        final TestLists.RecordingListener listener = new TestLists.RecordingListener();
+        final List<String> items = TestLists.items(30);
+        final ListView listView = new ListView(RuntimeEnvironment.application);
+        final ManualAnimationDriver driver = new ManualAnimationDriver();
+        final SwipeActionAdapter adapter;
+
+        Fixture() {
+            listView.addHeaderView(new View(RuntimeEnvironment.application));
+            adapter = new SwipeActionAdapter(new ArrayAdapter<>(RuntimeEnvironment.application,
+                    android.R.layout.simple_list_item_1, items));
+            adapter.setSwipeActionListener(listener).setListView(listView);
+            listView.setAdapter(adapter);
+            adapter.setAnimationDriver(driver).setAnimationDuration(ANIMATION_TIME);
+            TestLists.layout(listView);
+            // The action waits for the slide back, which doesn't hold up the change
+            listener.dismiss = false;
+        }
+
+        void swipeAndRemove(final int sourcePosition) {
+            TestLists.swipe(adapter, driver, 4, -0.7f * TestLists.WIDTH, 4);
+            // Slid out, refused, and now sliding back
+            driver.advance(ANIMATION_TIME + 32);
+            adapter.removeItems(sourcePosition, 1, new Runnable() {
+                @Override
+                public void run() {
+                    items.remove(sourcePosition);
+                }
+            });
+            ShadowLooper.idleMainLooper();
+            assertEquals(29, adapter.getCount());
+            driver.runUntilIdle();
+            assertEquals(1, listener.swipes());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PositionRemapperTest {
+    private static final int RANGE = 300;
+
+    private PositionRemapper mRemapper;
+    private TreeSet<Integer> mModel;
+
+    @Before
+    public void setUp() {
+        mRemapper = new PositionRemapper();
+        mModel = new TreeSet<>();
+    }
+
+    @Test
+    public void nothingHiddenIsTheIdentity() {
+        assertEquals(0, mRemapper.getHiddenCount());
+        assertEquals(42, mRemapper.toSourcePosition(42));
+        assertEquals(42, mRemapper.toPosition(42));
+        assertEquals(42, mRemapper.toBoundary(42));
+    }
+
+    @Test
+    public void hiddenPositionsAreSkipped() {
+        mRemapper.hide(2);
+        mRemapper.hide(3);
+        mRemapper.hide(7);
+        assertEquals(3, mRemapper.getHiddenCount());
+        assertEquals(1, mRemapper.toSourcePosition(1));
+        assertEquals(4, mRemapper.toSourcePosition(2));
+        assertEquals(8, mRemapper.toSourcePosition(5));
+        assertEquals(-1, mRemapper.toPosition(3));
+        assertEquals(5, mRemapper.toPosition(8));
+        assertEquals(2, mRemapper.toBoundary(3));
+    }
+
+    @Test
+    public void hidingTwiceCountsOnce() {
+        mRemapper.hide(5);
+        mRemapper.hide(5);
+        assertEquals(1, mRemapper.getHiddenCount());
+        mRemapper.restore(5);
+        assertFalse(mRemapper.isHidden(5));
+        assertEquals(5, mRemapper.toSourcePosition(5));
+        // Restoring a visible position does nothing
+        mRemapper.restore(5);
+        assertEquals(0, mRemapper.getHiddenCount());
+    }
+
+    @Test
+    public void farPositionsOfAHugeSource() {
+        mRemapper.hide(5000000);
+        mRemapper.hide(10);
+        assertEquals(9, mRemapper.toSourcePosition(9));
+        assertEquals(11, mRemapper.toSourcePosition(10));
+        assertEquals(4999999, mRemapper.toPosition(5000000 + 1));
+        assertEquals(5000001, mRemapper.toSourcePosition(4999999));
+        assertEquals(50000000 - 2, mRemapper.toBoundary(50000000));
+    }
+
+    @Test
+    public void confirmedRemovalsShiftTheHiddenPositions() {
+        mRemapper.hide(3);
+        mRemapper.hide(6);
+        mRemapper.hide(9);
+        // The source removed 3, which was hidden, and 5
+        mRemapper.confirm(new int[]{5, 3});
+        assertEquals(2, mRemapper.getHiddenCount());
+        assertTrue(mRemapper.isHidden(4));
+        assertTrue(mRemapper.isHidden(7));
+        assertEquals(5, mRemapper.toSourcePosition(4));
+    }
+
+    @Test
+    public void matchesABruteForceModel() {
+        Random random = new Random(3);
+        for (int op = 0; op < 5000; op++) {
+            int position = random.nextInt(RANGE);
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    mRemapper.hide(position);
+                    mModel.add(position);
+                    break;
+                case 2:
+                    mRemapper.restore(position);
+                    mModel.remove(position);
+                    break;
+                case 3: {
+                    int count = 1 + random.nextInt(5);
+                    mRemapper.insert(position, count);
+                    modelInsert(position, count);
+                    break;
+                }
+                case 4: {
+                    int count = 1 + random.nextInt(5);
+                    mRemapper.remove(position, count);
+                    modelRemove(position, count);
+                    break;
+                }
+                default: {
+                    int[] removed = new int[1 + random.nextInt(4)];
+                    for (int i = 0; i < removed.length; i++) removed[i] = random.nextInt(RANGE);
+                    mRemapper.confirm(removed);
+                    modelConfirm(removed);
+                    break;
+                }
+            }
+            // Keep the model within range
+            while (!mModel.isEmpty() && mModel.last() >= 2 * RANGE) {
+                mRemapper.restore(mModel.last());
+                mModel.remove(mModel.last());
+            }
+            assertMatchesModel("operation " + op);
+        }
+    }
+
+    private void assertMatchesModel(String message) {
+        assertEquals(message, mModel.size(), mRemapper.getHiddenCount());
+        int visible = 0;
+        for (int source = 0; source < 3 * RANGE; source++) {
+            boolean hidden = mModel.contains(source);
+            assertEquals(message, hidden, mRemapper.isHidden(source));
+            assertEquals(message, visible, mRemapper.toBoundary(source));
+            if (hidden) {
+                assertEquals(message, -1, mRemapper.toPosition(source));
+            } else {
+                assertEquals(message, visible, mRemapper.toPosition(source));
+                assertEquals(message, source, mRemapper.toSourcePosition(visible));
+                visible++;
+            }
+        }
+    }
+
+    private void modelInsert(int position, int count) {
+        List<Integer> shifted = new ArrayList<>();
+        for (int hidden : mModel) shifted.add(hidden >= position ? hidden + count : hidden);
+        mModel.clear();
+        mModel.addAll(shifted);
+    }
+
+    private void modelRemove(int position, int count) {
+        List<Integer> shifted = new ArrayList<>();
+        for (int hidden : mModel) {
+            if (hidden < position) shifted.add(hidden);
+            else if (hidden >= position + count) shifted.add(hidden - count);
+        }
+        mModel.clear();
+        mModel.addAll(shifted);
+    }
+
+    private void modelConfirm(int[] removed) {
+        TreeSet<Integer> removedSet = new TreeSet<>();
+        for (int position : removed) removedSet.add(position);
+        List<Integer> shifted = new ArrayList<>();
+        for (int hidden : mModel) {
+            if (removedSet.contains(hidden)) continue;
+            shifted.add(hidden - removedSet.headSet(hidden).size());
+        }
+        mModel.clear();
+        mModel.addAll(shifted);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class ReleaseTest {
+    @Before
+    public void setUp() {
+        // Keep frame callbacks queued, so the animations are still running when the list is destroyed
+        ShadowLooper.pauseMainLooper();
+    }
+
+    @Test
+    public void destroyedListCanBeCollectedWhileAnimationsWereRunning() {
+        List<WeakReference<Object>> references = startAnimationsAndDestroy();
+        // The animations posted frame callbacks: nothing they hold may keep the list alive
+        for (WeakReference<Object> reference : references) assertCollected(reference);
+    }
+
+    @Test
+    public void destroyCancelsAnimationsAndDropsPendingActions() {
+        Context context = RuntimeEnvironment.application;
+        ListView listView = new ListView(context);
+        TestLists.RecordingListener listener = new TestLists.RecordingListener();
+        SwipeActionAdapter adapter = TestLists.createAdapter(context, listView, TestLists.items(50), listener);
+        SwipeActionTouchListener touchListener = adapter.getTouchListener();
+
+        adapter.dismiss(new int[]{0, 1}, SwipeDirection.DIRECTION_NORMAL_LEFT);
+        assertEquals(1, touchListener.getRunningAnimationCount());
+        assertEquals(2, touchListener.getPendingDismissCount());
+
+        adapter.onDestroy();
+        assertEquals(0, touchListener.getRunningAnimationCount());
+        assertEquals(0, touchListener.getPendingDismissCount());
+        assertEquals(0, touchListener.getDismissAnimationRefCount());
+        assertNull(adapter.getTouchListener());
+        assertNull(adapter.getListView());
+        assertEquals(0, listener.swipes());
+        // The rows are back in their resting state
+        for (int i = 0; i < listView.getChildCount(); i++) {
+            View child = listView.getChildAt(i);
+            assertEquals(0f, child.getTranslationX(), 0f);
+            assertEquals(1f, child.getAlpha(), 0f);
+        }
+    }
+
+    @Test
+    public void releasedListenerIgnoresTouches() {
+        Context context = RuntimeEnvironment.application;
+        ListView listView = new ListView(context);
+        SwipeActionAdapter adapter = TestLists.createAdapter(context, listView, TestLists.items(50), new TestLists.RecordingListener());
+        SwipeActionTouchListener touchListener = adapter.getTouchListener();
+        adapter.onDestroy();
+        assertFalse(touchListener.onTouch(listView, MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN, 10, 10, 0)));
+    }
+
+    @Test
+    public void wrappedAdapterDoesNotKeepADestroyedAdapterAlive() {
+        ArrayAdapter<String> wrapped = new ArrayAdapter<>(RuntimeEnvironment.application,
+                android.R.layout.simple_list_item_1, TestLists.items(50));
+        WeakReference<Object> reference = attachAndDestroy(wrapped);
+        // The wrapped adapter is still in use, the adapter that decorated it is not
+        assertCollected(reference);
+        assertNotNull(wrapped);
+    }
+
+    @Test
+    public void replacedListViewIsReleased() {
+        Context context = RuntimeEnvironment.application;
+        ListView oldListView = new ListView(context);
+        TestLists.RecordingListener listener = new TestLists.RecordingListener();
+        SwipeActionAdapter adapter = TestLists.createAdapter(context, oldListView, TestLists.items(50), listener);
+        WeakReference<Object> oldTouchListener = dismissAndMove(adapter, new ListView(context));
+
+        // The actions decided on the old ListView were delivered
+        assertEquals(1, listener.swipes());
+        assertNotNull(adapter.getTouchListener());
+        // The old ListView no longer holds on to the old touch listener
+        assertCollected(oldTouchListener);
+        assertNotNull(oldListView);
+    }
+
+    private static WeakReference<Object> dismissAndMove(SwipeActionAdapter adapter, ListView newListView) {
+        SwipeActionTouchListener touchListener = adapter.getTouchListener();
+        adapter.dismiss(new int[]{3}, SwipeDirection.DIRECTION_NORMAL_LEFT);
+        adapter.setListView(newListView);
+        assertEquals(0, touchListener.getRunningAnimationCount());
+        return new WeakReference<Object>(touchListener);
+    }
+
+    private static WeakReference<Object> attachAndDestroy(ArrayAdapter<String> wrapped) {
+        ListView listView = new ListView(RuntimeEnvironment.application);
+        SwipeActionAdapter adapter = new SwipeActionAdapter(wrapped);
+        adapter.setContentVersionProvider(new SwipeActionAdapter.ContentVersionProvider() {
+            @Override
+            public long getContentVersion(int position) {
+                return 0;
+            }
+        });
+        adapter.setListView(listView);
+        listView.setAdapter(adapter);
+        TestLists.layout(listView);
+
+        adapter.onDestroy();
+        listView.setAdapter(null);
+        return new WeakReference<Object>(adapter);
+    }
+
+    private static List<WeakReference<Object>> startAnimationsAndDestroy() {
+        Context context = RuntimeEnvironment.application;
+        ListView listView = new ListView(context);
+        SwipeActionAdapter adapter = TestLists.createAdapter(context, listView, TestLists.items(50), new TestLists.RecordingListener());
+        SwipeActionTouchListener touchListener = adapter.getTouchListener();
+        assertNotNull(listView.getChildAt(0));
+
+        adapter.dismiss(new int[]{0, 2}, SwipeDirection.DIRECTION_NORMAL_RIGHT);
+        adapter.onDestroy();
+        listView.setAdapter(null);
+
+        List<WeakReference<Object>> references = new ArrayList<>();
+        references.add(new WeakReference<Object>(listView));
+        references.add(new WeakReference<Object>(listView.getChildAt(0)));
+        references.add(new WeakReference<Object>(adapter));
+        references.add(new WeakReference<Object>(touchListener));
+        return references;
+    }
+
+    private static void assertCollected(WeakReference<Object> reference) {
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+        }
+        assertNull("Still reachable: " + reference.get(), reference.get());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.view.MotionEvent;
+
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowMotionEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MotionEvent shadow with batched historical samples, which the default shadow doesn't keep.
+ * The event itself holds the newest sample: create it with the last sample of the batch and add
+ * the older ones with {@link #addHistory(MotionEvent, long, float, float)}.
+ */
+@Implements(MotionEvent.class)
+public class ShadowBatchedMotionEvent extends ShadowMotionEvent {
+    private final List<Long> mHistoryTimes = new ArrayList<>();
+    private final List<Float> mHistoryX = new ArrayList<>();
+    private final List<Float> mHistoryY = new ArrayList<>();
+
+    /**
+     * Add a sample that was taken before the current one, oldest first
+     */
+    static void addHistory(MotionEvent event, long time, float x, float y) {
+        ShadowBatchedMotionEvent shadow = Shadow.extract(event);
+        shadow.mHistoryTimes.add(time);
+        shadow.mHistoryX.add(x);
+        shadow.mHistoryY.add(y);
+    }
+
+    @Implementation
+    public int getHistorySize() {
+        return mHistoryTimes.size();
+    }
+
+    @Implementation
+    public long getHistoricalEventTime(int pos) {
+        return mHistoryTimes.get(pos);
+    }
+
+    @Implementation
+    public float getHistoricalX(int pos) {
+        return mHistoryX.get(pos);
+    }
+
+    @Implementation
+    public float getHistoricalY(int pos) {
+        return mHistoryY.get(pos);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Adapter;
+import android.widget.AdapterView;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StableIdIndexTest {
+    private static final int COUNT = 1000;
+
+    private IdAdapter mAdapter;
+    private StableIdIndex mIndex;
+
+    @Before
+    public void setUp() {
+        mAdapter = new IdAdapter();
+        for (long id = 0; id < COUNT; id++) mAdapter.ids.add(id * 7);
+        mIndex = new StableIdIndex();
+    }
+
+    @Test
+    public void findsItemAtItsHint() {
+        assertEquals(500, mIndex.positionOf(mAdapter, 500 * 7, 500));
+        assertTrue(mAdapter.lookups <= 1);
+    }
+
+    @Test
+    public void findsItemThatMovedALittle() {
+        mAdapter.ids.remove(0);
+        mAdapter.ids.remove(0);
+        mAdapter.notifyChanged();
+        assertEquals(498, mIndex.positionOf(mAdapter, 500 * 7, 500));
+        // Found by the probe, the whole adapter was not indexed
+        assertTrue(mAdapter.lookups < 20);
+    }
+
+    @Test
+    public void findsItemThatMovedFar() {
+        for (int i = 0; i < 100; i++) mAdapter.ids.remove(0);
+        mAdapter.notifyChanged();
+        assertEquals(400, mIndex.positionOf(mAdapter, 500 * 7, 500));
+    }
+
+    @Test
+    public void removedItemIsInvalid() {
+        mAdapter.ids.remove(500);
+        mAdapter.notifyChanged();
+        assertEquals(AdapterView.INVALID_POSITION, mIndex.positionOf(mAdapter, 500 * 7, 500));
+    }
+
+    @Test
+    public void removedItemsOnlyIndexTheAdapterOnce() {
+        for (int i = 0; i < 10; i++) mAdapter.ids.remove(100);
+        mAdapter.notifyChanged();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(AdapterView.INVALID_POSITION, mIndex.positionOf(mAdapter, (100 + i) * 7, 100 + i));
+        }
+        // One full pass, plus a bounded probe per lookup
+        assertTrue(mAdapter.lookups < COUNT + 10 * 20);
+    }
+
+    @Test
+    public void reportedChangeRebuildsTheIndex() {
+        assertEquals(AdapterView.INVALID_POSITION, mIndex.positionOf(mAdapter, -1, 0));
+        mAdapter.ids.add(-1L);
+        mAdapter.notifyChanged();
+        assertEquals(COUNT, mIndex.positionOf(mAdapter, -1, 0));
+    }
+
+    @Test
+    public void unreportedMoveIsDetected() {
+        assertEquals(900, mIndex.positionOf(mAdapter, 900 * 7, 0));
+        // Same amount of items, no notification
+        mAdapter.ids.add(0, mAdapter.ids.remove(COUNT - 1));
+        assertEquals(901, mIndex.positionOf(mAdapter, 900 * 7, 0));
+    }
+
+    @Test
+    public void releaseStopsWatchingTheAdapter() {
+        mIndex.positionOf(mAdapter, 0, 0);
+        assertEquals(1, mAdapter.observers.size());
+        mIndex.release();
+        assertEquals(0, mAdapter.observers.size());
+    }
+
+    /**
+     * Adapter with stable ids that counts how often an id is read
+     */
+    static class IdAdapter implements Adapter {
+        final List<Long> ids = new ArrayList<>();
+        final List<DataSetObserver> observers = new ArrayList<>();
+        int lookups = 0;
+
+        void notifyChanged() {
+            for (DataSetObserver observer : new ArrayList<>(observers)) observer.onChanged();
+        }
+
+        @Override
+        public void registerDataSetObserver(DataSetObserver observer) {
+            observers.add(observer);
+        }
+
+        @Override
+        public void unregisterDataSetObserver(DataSetObserver observer) {
+            observers.remove(observer);
+        }
+
+        @Override
+        public int getCount() {
+            return ids.size();
+        }
+
+        @Override
+        public Object getItem(int position) {
+            return ids.get(position);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            lookups++;
+            return ids.get(position);
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+
+        @Override
+        public View getView(int position, View convertView, ViewGroup parent) {
+            return null;
+        }
+
+        @Override
+        public int getItemViewType(int position) {
+            return 0;
+        }
+
+        @Override
+        public int getViewTypeCount() {
+            return 1;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return ids.isEmpty();
+        }
+    }
+}
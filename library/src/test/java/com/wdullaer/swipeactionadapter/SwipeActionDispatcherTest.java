@@ -0,0 +1,130 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Actions handed to the background executor: a rejecting executor must cost the actions, not the
+ * touch listener that offers them
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class SwipeActionDispatcherTest {
+    private final List<Runnable> mTasks = new ArrayList<>();
+    private final List<Integer> mHandled = new ArrayList<>();
+    private boolean mReject = false;
+    private SwipeActionDispatcher mDispatcher;
+
+    @Before
+    public void setUp() {
+        mDispatcher = new SwipeActionDispatcher(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (mReject) throw new RejectedExecutionException();
+                mTasks.add(command);
+            }
+        }, 4, SwipeActionDispatcher.Backpressure.OVERFLOW, new SwipeActionDispatcher.BackgroundActionHandler() {
+            @Override
+            public Runnable onBackgroundAction(int position, long id, SwipeDirection direction) {
+                mHandled.add(position);
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void actionsAreHandledInOrder() {
+        for (int i = 0; i < 6; i++) assertTrue(mDispatcher.offer(i, i, SwipeDirection.DIRECTION_NORMAL_LEFT));
+        assertEquals(1, mTasks.size());
+        runTasks();
+        assertEquals(6, mHandled.size());
+        for (int i = 0; i < 6; i++) assertEquals(i, (int) mHandled.get(i));
+        assertEquals(0, mDispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void rejectedActionsAreDropped() {
+        mReject = true;
+        assertFalse(mDispatcher.offer(0, 0, SwipeDirection.DIRECTION_NORMAL_LEFT));
+        assertFalse(mDispatcher.offer(1, 1, SwipeDirection.DIRECTION_NORMAL_LEFT));
+        assertEquals(2, mDispatcher.getDroppedCount());
+
+        // Nothing is left behind in the queue, and the next action gets a drain again
+        mReject = false;
+        assertTrue(mDispatcher.offer(2, 2, SwipeDirection.DIRECTION_NORMAL_LEFT));
+        runTasks();
+        assertEquals(1, mHandled.size());
+        assertEquals(2, (int) mHandled.get(0));
+    }
+
+    @Test
+    public void rejectionWhileDrainingDropsTheRest() {
+        mDispatcher.offer(0, 0, SwipeDirection.DIRECTION_NORMAL_LEFT);
+        // Queued behind the running drain, in the ring and in the overflow list
+        for (int i = 1; i < 8; i++) mDispatcher.offer(i, i, SwipeDirection.DIRECTION_NORMAL_LEFT);
+        mReject = true;
+        Runnable drain = mTasks.remove(0);
+        mHandled.clear();
+        drain.run();
+        // The drain handles everything it can see, so only a rescheduled drain can be rejected
+        assertEquals(8, mHandled.size());
+        assertEquals(0, mDispatcher.getDroppedCount());
+
+        assertFalse(mDispatcher.offer(8, 8, SwipeDirection.DIRECTION_NORMAL_LEFT));
+        assertEquals(1, mDispatcher.getDroppedCount());
+    }
+
+    @Test
+    public void adapterSurvivesARejectingExecutor() {
+        ListView listView = new ListView(RuntimeEnvironment.application);
+        TestLists.RecordingListener listener = new TestLists.RecordingListener();
+        SwipeActionAdapter adapter = TestLists.createAdapter(RuntimeEnvironment.application, listView,
+                TestLists.items(30), listener);
+        adapter.setSwipeActionDispatcher(mDispatcher);
+        mReject = true;
+
+        adapter.onAction(listView, new int[]{5, 3, 1}, new long[]{5, 3, 1}, new SwipeDirection[]{
+                SwipeDirection.DIRECTION_NORMAL_LEFT,
+                SwipeDirection.DIRECTION_NORMAL_LEFT,
+                SwipeDirection.DIRECTION_NORMAL_RIGHT});
+        assertEquals(1, listener.swipes());
+        assertEquals(3, mDispatcher.getDroppedCount());
+    }
+
+    private void runTasks() {
+        while (!mTasks.isEmpty()) mTasks.remove(0).run();
+        ShadowLooper.idleMainLooper();
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.database.DataSetObserver;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Complete swipe, dismiss and flush cycles on the virtual clock of a {@link ManualAnimationDriver}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class SwipeCycleTest {
+    private static final long ANIMATION_TIME = 200;
+
+    private ListView mListView;
+    private List<String> mItems;
+    private TestLists.RecordingListener mListener;
+    private SwipeActionAdapter mAdapter;
+    private ManualAnimationDriver mDriver;
+
+    @Before
+    public void setUp() {
+        mListView = new ListView(RuntimeEnvironment.application);
+        mItems = TestLists.items(50);
+        mListener = new TestLists.RecordingListener();
+        mAdapter = TestLists.createAdapter(RuntimeEnvironment.application, mListView, mItems, mListener);
+        mDriver = new ManualAnimationDriver();
+        mAdapter.setAnimationDriver(mDriver).setAnimationDuration(ANIMATION_TIME);
+    }
+
+    @Test
+    public void farSwipeIsDeliveredOnceAfterTheAnimations() {
+        TestLists.swipe(mAdapter, mDriver, 3, -0.7f * TestLists.WIDTH, 8);
+        assertEquals(0, mListener.swipes());
+
+        long start = mDriver.uptimeMillis();
+        mDriver.runUntilIdle();
+        // A slide out followed by a collapse
+        assertTrue(mDriver.uptimeMillis() - start >= 2 * ANIMATION_TIME);
+        assertEquals(1, mListener.swipes());
+        assertArrayEquals(new int[]{3}, mListener.positions.get(0));
+        assertArrayEquals(new SwipeDirection[]{SwipeDirection.DIRECTION_FAR_LEFT}, mListener.directions.get(0));
+        assertIdle();
+    }
+
+    @Test
+    public void normalSwipeToTheRight() {
+        TestLists.swipe(mAdapter, mDriver, 0, 0.35f * TestLists.WIDTH, 8);
+        mDriver.runUntilIdle();
+        assertArrayEquals(new SwipeDirection[]{SwipeDirection.DIRECTION_NORMAL_RIGHT}, mListener.directions.get(0));
+        assertIdle();
+    }
+
+    @Test
+    public void shortSwipeSlidesBackWithoutAction() {
+        TestLists.swipe(mAdapter, mDriver, 2, 0.1f * TestLists.WIDTH, 8);
+        mDriver.runUntilIdle();
+        assertEquals(0, mListener.decisions);
+        assertEquals(0, mListener.swipes());
+        assertIdle();
+    }
+
+    @Test
+    public void refusedDismissSlidesBackAndIsStillDelivered() {
+        mListener.dismiss = false;
+        TestLists.swipe(mAdapter, mDriver, 4, 0.7f * TestLists.WIDTH, 8);
+        mDriver.runUntilIdle();
+        assertEquals(1, mListener.decisions);
+        assertArrayEquals(new int[]{4}, mListener.positions.get(0));
+        assertIdle();
+    }
+
+    @Test
+    public void overlappingSwipesAreDeliveredInOneBatch() {
+        TestLists.swipe(mAdapter, mDriver, 1, -0.7f * TestLists.WIDTH, 4);
+        // The first row is still sliding out
+        TestLists.swipe(mAdapter, mDriver, 5, -0.7f * TestLists.WIDTH, 4);
+        mDriver.runUntilIdle();
+        assertEquals(1, mListener.swipes());
+        assertArrayEquals(new int[]{5, 1}, mListener.positions.get(0));
+        assertIdle();
+    }
+
+    @Test
+    public void bulkDismissIsOneBatch() {
+        mAdapter.dismiss(new int[]{2, 7, 40}, SwipeDirection.DIRECTION_NORMAL_LEFT);
+        mDriver.runUntilIdle();
+        assertEquals(1, mListener.swipes());
+        assertArrayEquals(new int[]{40, 7, 2}, mListener.positions.get(0));
+        assertIdle();
+    }
+
+    @Test
+    public void thousandsOfCyclesRunOnTheVirtualClock() {
+        Random random = new Random(7);
+        int expected = 0;
+        for (int i = 0; i < 2000; i++) {
+            float fraction = 0.3f + random.nextFloat() * 0.6f;
+            float distance = (random.nextBoolean() ? 1 : -1) * fraction * TestLists.WIDTH;
+            TestLists.swipe(mAdapter, mDriver, random.nextInt(mListView.getChildCount()), distance, 1 + random.nextInt(6));
+            mDriver.runUntilIdle();
+            TestLists.layout(mListView);
+            expected++;
+            assertEquals("cycle " + i, expected, mListener.swipes());
+        }
+        assertIdle();
+    }
+
+    @Test
+    public void coalescedChangeFromOnSwipeIsDeliveredBeforeTheRowsAreReset() {
+        final int[] changes = new int[1];
+        mAdapter.setCoalesceNotifications(true);
+        mAdapter.registerDataSetObserver(new DataSetObserver() {
+            @Override
+            public void onChanged() {
+                changes[0]++;
+            }
+        });
+        TestLists.RecordingListener listener = new TestLists.RecordingListener() {
+            @Override
+            public void onSwipe(int[] position, SwipeDirection[] direction) {
+                super.onSwipe(position, direction);
+                for (int p : position) mItems.remove(p);
+                mAdapter.notifyDataSetChanged();
+            }
+        };
+        mAdapter.setSwipeActionListener(listener);
+
+        TestLists.swipe(mAdapter, mDriver, 3, -0.7f * TestLists.WIDTH, 8);
+        while (listener.swipes() == 0 && !mDriver.isIdle()) mDriver.advance(16);
+        // The frame that delivered onSwipe also reset the rows, which requests a layout
+        assertEquals(1, changes[0]);
+        TestLists.layout(mListView);
+        assertEquals(mItems.size(), mListView.getCount());
+        mDriver.runUntilIdle();
+        assertIdle();
+    }
+
+    @Test
+    public void debugOverlayIsRedrawnWhenTheAnimationsChange() {
+        ListView listView = new ListView(RuntimeEnvironment.application);
+        final int[] changes = new int[1];
+        final int[] runningAtChange = new int[1];
+        final SwipeActionAdapter adapter = new SwipeActionAdapter(new ArrayAdapter<>(RuntimeEnvironment.application,
+                android.R.layout.simple_list_item_1, TestLists.items(50))) {
+            @Override
+            public void onAnimationsChanged() {
+                super.onAnimationsChanged();
+                changes[0]++;
+                runningAtChange[0] = getTouchListener().getRunningAnimationCount();
+            }
+        };
+        adapter.setSwipeActionListener(mListener).setListView(listView);
+        listView.setAdapter(adapter);
+        adapter.setDebugMode(true).setAnimationDriver(mDriver).setAnimationDuration(ANIMATION_TIME);
+        TestLists.layout(listView);
+
+        TestLists.swipe(adapter, mDriver, 3, -0.7f * TestLists.WIDTH, 8);
+        // The slide out started
+        assertEquals(1, changes[0]);
+        assertEquals(1, runningAtChange[0]);
+
+        mDriver.runUntilIdle();
+        // The slide out ended, the collapse started and ended, and the action was flushed
+        assertEquals(1, mListener.swipes());
+        assertEquals(5, changes[0]);
+        assertEquals(0, runningAtChange[0]);
+    }
+
+    @Test
+    public void directionMaskSkipsTheHeaderViews() {
+        ListView listView = new ListView(RuntimeEnvironment.application);
+        listView.addHeaderView(new TextView(RuntimeEnvironment.application));
+        listView.addFooterView(new TextView(RuntimeEnvironment.application));
+        SwipeActionAdapter adapter = TestLists.createAdapter(RuntimeEnvironment.application, listView,
+                TestLists.items(3), mListener);
+        adapter.setAnimationDriver(mDriver).setAnimationDuration(ANIMATION_TIME);
+        // Only the second item can be swiped, and only to the right
+        SwipeDirectionMask mask = new SwipeDirectionMask(SwipeDirectionMask.NONE)
+                .set(1, SwipeDirectionMask.of(SwipeDirection.DIRECTION_NORMAL_RIGHT));
+        adapter.setDirectionMask(mask);
+
+        int header = 0;
+        int footer = listView.getCount() - 1;
+        assertFalse(adapter.hasActions(header, SwipeDirection.DIRECTION_NORMAL_RIGHT));
+        assertFalse(adapter.hasActions(footer, SwipeDirection.DIRECTION_NORMAL_RIGHT));
+        assertFalse(adapter.hasActions(1, SwipeDirection.DIRECTION_NORMAL_RIGHT));
+        assertTrue(adapter.hasActions(2, SwipeDirection.DIRECTION_NORMAL_RIGHT));
+        assertFalse(adapter.hasActions(2, SwipeDirection.DIRECTION_NORMAL_LEFT));
+
+        TestLists.swipe(adapter, mDriver, 2, -0.35f * TestLists.WIDTH, 8);
+        mDriver.runUntilIdle();
+        assertEquals(0, mListener.swipes());
+        TestLists.swipe(adapter, mDriver, 2, 0.35f * TestLists.WIDTH, 8);
+        mDriver.runUntilIdle();
+        assertEquals(1, mListener.swipes());
+        // Position 2 of the ListView is the second item
+        assertArrayEquals(new int[]{2}, mListener.positions.get(0));
+    }
+
+    private void assertIdle() {
+        SwipeActionTouchListener touchListener = mAdapter.getTouchListener();
+        assertEquals(0, touchListener.getDismissAnimationRefCount());
+        assertEquals(0, touchListener.getPendingDismissCount());
+        assertEquals(0, touchListener.getRunningAnimationCount());
+        TestLists.layout(mListView);
+        for (int i = 0; i < mListView.getChildCount(); i++) {
+            View child = mListView.getChildAt(i);
+            assertEquals("row " + i, 0f, child.getTranslationX(), 0f);
+            assertEquals("row " + i, 1f, child.getAlpha(), 0f);
+        }
+    }
+}
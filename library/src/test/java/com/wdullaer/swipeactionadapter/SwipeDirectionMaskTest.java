@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwipeDirectionMaskTest {
+    private static final int DEFAULT = SwipeDirectionMask.of(SwipeDirection.DIRECTION_NORMAL_LEFT);
+
+    @Test
+    public void everyDirectionHasItsOwnBit() {
+        int all = SwipeDirectionMask.NONE;
+        for (SwipeDirection direction : SwipeDirection.values()) {
+            if (direction == SwipeDirection.DIRECTION_NEUTRAL) continue;
+            int bit = SwipeDirectionMask.bit(direction);
+            assertEquals(1, Integer.bitCount(bit));
+            assertEquals(0, all & bit);
+            all |= bit;
+        }
+        assertEquals(SwipeDirectionMask.ALL, all);
+        assertEquals(0, SwipeDirectionMask.bit(SwipeDirection.DIRECTION_NEUTRAL));
+        assertEquals(SwipeDirectionMask.NONE, SwipeDirectionMask.of());
+    }
+
+    @Test
+    public void unsetPositionsUseTheDefault() {
+        SwipeDirectionMask mask = new SwipeDirectionMask(DEFAULT);
+        assertEquals(0, mask.size());
+        assertTrue(mask.has(1000, SwipeDirection.DIRECTION_NORMAL_LEFT));
+        assertFalse(mask.has(1000, SwipeDirection.DIRECTION_FAR_LEFT));
+        assertFalse(mask.has(1000, SwipeDirection.DIRECTION_NEUTRAL));
+        assertEquals(SwipeDirectionMask.NONE, mask.get(-1));
+        assertEquals(SwipeDirectionMask.ALL, new SwipeDirectionMask().get(3));
+    }
+
+    @Test
+    public void setGrowsWithTheDefaultInBetween() {
+        SwipeDirectionMask mask = new SwipeDirectionMask(DEFAULT);
+        int right = SwipeDirectionMask.of(SwipeDirection.DIRECTION_NORMAL_RIGHT, SwipeDirection.DIRECTION_FAR_RIGHT);
+        mask.set(40, right);
+        assertEquals(41, mask.size());
+        assertEquals(right, mask.get(40));
+        assertEquals(DEFAULT, mask.get(39));
+        assertEquals(DEFAULT, mask.get(0));
+        // Bits outside of the four directions are dropped
+        mask.set(3, 0xFF);
+        assertEquals(SwipeDirectionMask.ALL, mask.get(3));
+    }
+
+    @Test
+    public void neighboursAcrossAWordAreIndependent() {
+        SwipeDirectionMask mask = new SwipeDirectionMask(SwipeDirectionMask.NONE);
+        // 16 positions to a word
+        for (int i = 0; i < 64; i++) mask.set(i, i & SwipeDirectionMask.ALL);
+        for (int i = 0; i < 64; i++) assertEquals("position " + i, i & SwipeDirectionMask.ALL, mask.get(i));
+        mask.setRange(14, 4, SwipeDirectionMask.ALL);
+        assertEquals(13, mask.get(13));
+        assertEquals(SwipeDirectionMask.ALL, mask.get(15));
+        assertEquals(SwipeDirectionMask.ALL, mask.get(16));
+        assertEquals(2, mask.get(18));
+    }
+
+    @Test
+    public void insertAndRemoveShiftThePositionsBehind() {
+        SwipeDirectionMask mask = new SwipeDirectionMask(DEFAULT);
+        mask.setAll(0, new int[]{1, 2, 3, 4});
+        mask.insert(1, 2, 8);
+        assertEquals(6, mask.size());
+        assertEquals(1, mask.get(0));
+        assertEquals(8, mask.get(1));
+        assertEquals(8, mask.get(2));
+        assertEquals(2, mask.get(3));
+        assertEquals(4, mask.get(5));
+
+        mask.remove(0, 3);
+        assertEquals(3, mask.size());
+        assertEquals(2, mask.get(0));
+        assertEquals(4, mask.get(2));
+        // Past the end: only the positions that were set are forgotten
+        mask.remove(2, 10);
+        assertEquals(2, mask.size());
+        assertEquals(DEFAULT, mask.get(2));
+
+        mask.insert(0, 1);
+        assertEquals(DEFAULT, mask.get(0));
+        mask.clear();
+        assertEquals(0, mask.size());
+        assertEquals(DEFAULT, mask.get(0));
+    }
+
+    @Test
+    public void invalidArgumentsChangeNothing() {
+        SwipeDirectionMask mask = new SwipeDirectionMask(DEFAULT);
+        mask.set(-1, SwipeDirectionMask.ALL)
+                .setRange(0, 0, SwipeDirectionMask.ALL)
+                .setAll(0, new int[0])
+                .insert(-1, 3)
+                .remove(0, 5);
+        assertEquals(0, mask.size());
+    }
+
+    @Test
+    public void matchesAListModel() {
+        Random random = new Random(7);
+        SwipeDirectionMask mask = new SwipeDirectionMask(DEFAULT);
+        List<Integer> model = new ArrayList<>();
+        for (int op = 0; op < 5000; op++) {
+            int position = random.nextInt(model.size() + 20);
+            int count = 1 + random.nextInt(40);
+            int value = random.nextInt(SwipeDirectionMask.ALL + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    mask.setRange(position, count, value);
+                    while (model.size() < position + count) model.add(DEFAULT);
+                    for (int i = position; i < position + count; i++) model.set(i, value);
+                    break;
+                case 1:
+                    mask.insert(position, count, value);
+                    while (model.size() < position) model.add(DEFAULT);
+                    for (int i = 0; i < count; i++) model.add(position, value);
+                    break;
+                case 2:
+                    mask.remove(position, count);
+                    for (int i = 0; i < count && position < model.size(); i++) model.remove(position);
+                    break;
+                default:
+                    // Keep the model from growing without bounds
+                    if (model.size() > 2000) {
+                        mask.clear();
+                        model.clear();
+                    }
+                    break;
+            }
+            assertEquals("operation " + op, model.size(), mask.size());
+            for (int i = 0; i < model.size() + 20; i++) {
+                int expected = i < model.size() ? model.get(i) : DEFAULT;
+                assertEquals("operation " + op + ", position " + i, expected, mask.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SwipeGestureRecognizerTest {
+    private static final int SLOP = 10;
+    private static final int WIDTH = 400;
+
+    private SwipeGestureRecognizer mRecognizer;
+
+    @Before
+    public void setUp() {
+        mRecognizer = new SwipeGestureRecognizer()
+                .setTouchSlop(SLOP)
+                .setFlingVelocity(500, 8000)
+                .setWidth(WIDTH)
+                .setNormalSwipeFraction(0.25f)
+                .setFarSwipeFraction(0.5f);
+    }
+
+    @Test
+    public void becomesASwipeOnceTheSlopIsCrossed() {
+        mRecognizer.down(100, 100, 0);
+        assertEquals(SwipeGestureRecognizer.STATE_TRACKING, mRecognizer.getState());
+        assertFalse(mRecognizer.move(100 + SLOP, 100, 10));
+        assertFalse(mRecognizer.isSwiping());
+        assertTrue(mRecognizer.move(100 + SLOP + 1, 100, 20));
+        assertTrue(mRecognizer.isSwiping());
+        // Only the sample that crossed the slop starts the swipe
+        assertFalse(mRecognizer.move(150, 100, 30));
+        assertEquals(SwipeDirection.DIRECTION_NORMAL_RIGHT, mRecognizer.getDirection());
+    }
+
+    @Test
+    public void translationStartsAtTheSlop() {
+        mRecognizer.down(100, 100, 0);
+        mRecognizer.move(100 - SLOP - 5, 100, 10);
+        assertEquals(-SLOP - 5, mRecognizer.getDeltaX(), 0);
+        assertEquals(-5, mRecognizer.getTranslation(), 0);
+        assertEquals(SwipeDirection.DIRECTION_NORMAL_LEFT, mRecognizer.getDirection());
+    }
+
+    @Test
+    public void mostlyVerticalMovementIsNotASwipe() {
+        mRecognizer.down(100, 100, 0);
+        mRecognizer.move(100 + 2 * SLOP, 100 + 2 * SLOP, 10);
+        mRecognizer.move(100 + 3 * SLOP, 100 + 4 * SLOP, 20);
+        assertFalse(mRecognizer.isSwiping());
+        assertEquals(SwipeGestureRecognizer.RELEASE_CANCEL, mRecognizer.up(100 + 3 * SLOP, 100 + 4 * SLOP, 30));
+    }
+
+    @Test
+    public void thresholdsAreNotRounded() {
+        // The normal threshold is 100.5 pixels and the far threshold 201
+        mRecognizer.setWidth(WIDTH + 2);
+        mRecognizer.down(0, 0, 0);
+        mRecognizer.move(100.7f, 0, 200);
+        assertTrue(mRecognizer.isPastNormal());
+        mRecognizer.move(100.4f, 0, 400);
+        assertFalse(mRecognizer.isPastNormal());
+        mRecognizer.move(201.5f, 0, 600);
+        assertTrue(mRecognizer.isFar());
+        // Slow enough not to be a fling
+        assertEquals(SwipeGestureRecognizer.RELEASE_CANCEL, mRecognizer.up(100.4f, 0, 2000));
+    }
+
+    @Test
+    public void farSwipeHasHysteresis() {
+        mRecognizer.down(0, 0, 0);
+        mRecognizer.move(WIDTH / 2 + 1, 0, 10);
+        assertEquals(SwipeDirection.DIRECTION_FAR_RIGHT, mRecognizer.getDirection());
+        assertTrue(mRecognizer.isFar());
+
+        // Back below the far threshold, but on the same side: still far
+        mRecognizer.move(WIDTH / 8, 0, 20);
+        assertEquals(SwipeDirection.DIRECTION_FAR_RIGHT, mRecognizer.getDirection());
+
+        // Crossing the starting point clears it
+        mRecognizer.move(-SLOP, 0, 30);
+        assertFalse(mRecognizer.isFar());
+        assertEquals(SwipeDirection.DIRECTION_NORMAL_LEFT, mRecognizer.getDirection());
+    }
+
+    @Test
+    public void releasePastTheNormalFractionDismisses() {
+        mRecognizer.down(0, 0, 0);
+        mRecognizer.move(-WIDTH / 4 - 1, 0, 500);
+        assertTrue(mRecognizer.isPastNormal());
+        assertEquals(SwipeGestureRecognizer.RELEASE_DISMISS_LEFT, mRecognizer.up(-WIDTH / 4 - 1, 0, 1000));
+    }
+
+    @Test
+    public void slowReleaseShortOfTheNormalFractionCancels() {
+        mRecognizer.down(0, 0, 0);
+        for (int t = 10; t <= 500; t += 10) mRecognizer.move(t / 10f, 0, t);
+        assertTrue(mRecognizer.isSwiping());
+        assertEquals(SwipeGestureRecognizer.RELEASE_CANCEL, mRecognizer.up(50, 0, 510));
+    }
+
+    @Test
+    public void flingDismissesShortOfTheNormalFraction() {
+        mRecognizer.down(0, 0, 0);
+        // 2000 px/s to the right
+        for (int t = 4; t <= 32; t += 4) mRecognizer.move(2 * t, 0, t);
+        assertFalse(mRecognizer.isPastNormal());
+        assertEquals(SwipeGestureRecognizer.RELEASE_DISMISS_RIGHT, mRecognizer.up(72, 0, 36));
+    }
+
+    @Test
+    public void flingAgainstTheDragDirectionCancels() {
+        mRecognizer.down(0, 0, 0);
+        mRecognizer.move(60, 0, 200);
+        // Flicked back towards the start, still right of it
+        for (int t = 204; t <= 220; t += 4) mRecognizer.move(60 - 2 * (t - 200), 0, t);
+        assertEquals(SwipeGestureRecognizer.RELEASE_CANCEL, mRecognizer.up(16, 0, 224));
+    }
+
+    @Test
+    public void flingFasterThanTheMaximumCancels() {
+        mRecognizer.setFlingVelocity(500, 1000);
+        mRecognizer.down(0, 0, 0);
+        for (int t = 4; t <= 16; t += 4) mRecognizer.move(5 * t, 0, t);
+        assertEquals(SwipeGestureRecognizer.RELEASE_CANCEL, mRecognizer.up(90, 0, 18));
+    }
+
+    @Test
+    public void velocityOfAConstantMovement() {
+        mRecognizer.down(0, 0, 0);
+        for (int t = 8; t <= 80; t += 8) mRecognizer.move(1.5f * t, -0.5f * t, t);
+        assertEquals(1500, mRecognizer.getVelocityX(), 1);
+        assertEquals(-500, mRecognizer.getVelocityY(), 1);
+    }
+
+    @Test
+    public void velocityOnlyUsesRecentSamples() {
+        mRecognizer.down(0, 0, 0);
+        // Slow for a second, then fast for 100 ms
+        for (int t = 10; t <= 1000; t += 10) mRecognizer.move(t / 10f, 0, t);
+        for (int t = 1010; t <= 1100; t += 10) mRecognizer.move(100 + 3 * (t - 1000), 0, t);
+        assertEquals(3000, mRecognizer.getVelocityX(), 1);
+    }
+
+    @Test
+    public void takeOverContinuesFromTheOffset() {
+        mRecognizer.down(200, 100, 0);
+        mRecognizer.takeOver(-150);
+        assertTrue(mRecognizer.isSwiping());
+        assertEquals(SwipeDirection.DIRECTION_NORMAL_LEFT, mRecognizer.getDirection());
+        assertEquals(-150, mRecognizer.getTranslation(), 0);
+        mRecognizer.move(190, 100, 10);
+        assertEquals(-160, mRecognizer.getTranslation(), 0);
+    }
+
+    @Test
+    public void widthChangeMovesTheThresholds() {
+        mRecognizer.down(0, 0, 0);
+        mRecognizer.move(WIDTH / 4 + 1, 0, 10);
+        assertTrue(mRecognizer.isPastNormal());
+        mRecognizer.setWidth(2 * WIDTH);
+        assertFalse(mRecognizer.isPastNormal());
+    }
+
+    @Test
+    public void resetEndsTheGesture() {
+        mRecognizer.down(0, 0, 0);
+        mRecognizer.move(100, 0, 10);
+        mRecognizer.reset();
+        assertFalse(mRecognizer.isTracking());
+        assertEquals(SwipeDirection.DIRECTION_NEUTRAL, mRecognizer.getDirection());
+        assertFalse(mRecognizer.move(200, 0, 20));
+        assertEquals(SwipeGestureRecognizer.RELEASE_CANCEL, mRecognizer.up(200, 0, 30));
+    }
+
+    /**
+     * Not a precise benchmark, but recognition must be cheap enough to run for every batched
+     * sample. It measures wall clock time, so it is only run by hand.
+     */
+    @Ignore("Wall clock benchmark, run by hand")
+    @Test
+    public void benchmarkRecognition() {
+        final int gestures = 20000;
+        final int samples = 50;
+        // Warm up
+        runGestures(gestures / 10, samples);
+
+        long start = System.nanoTime();
+        int dismissed = runGestures(gestures, samples);
+        long elapsed = System.nanoTime() - start;
+
+        long totalSamples = (long) gestures * (samples + 2);
+        long nanosPerSample = elapsed / totalSamples;
+        assertTrue(dismissed > 0);
+        // A frame is 16ms and holds a handful of samples
+        assertTrue(nanosPerSample + " ns/sample", nanosPerSample < 10000);
+    }
+
+    private int runGestures(int gestures, int samples) {
+        int dismissed = 0;
+        for (int g = 0; g < gestures; g++) {
+            float speed = (g % 7 - 3) / 2f;
+            mRecognizer.down(200, 100, 0);
+            for (int i = 1; i <= samples; i++) mRecognizer.move(200 + speed * 4 * i, 100 + (i & 3), 4 * i);
+            if (mRecognizer.up(200 + speed * 4 * samples, 100, 4 * samples + 4) != SwipeGestureRecognizer.RELEASE_CANCEL) {
+                dismissed++;
+            }
+        }
+        return dismissed;
+    }
+}
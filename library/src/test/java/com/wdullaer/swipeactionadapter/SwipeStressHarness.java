@@ -0,0 +1,331 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.support.annotation.NonNull;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.ListView;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Drives a {@link SwipeActionAdapter} with a seeded stream of random gestures and data changes,
+ * and checks that the swipe bookkeeping stays consistent.
+ *
+ * Animations are stepped through a {@link ManualAnimationDriver}, so gestures overlap with
+ * running slide and collapse animations without waiting on the display. The following
+ * invariants are checked:
+ * <ul>
+ *     <li>the dismiss animation ref count never becomes negative or unbalanced</li>
+ *     <li>every swipe that reached shouldDismiss is delivered to onSwipe exactly once</li>
+ *     <li>once all animations are done, no row is left translated or transparent</li>
+ * </ul>
+ * The ListView must be attached and laid out, on a device or under Robolectric. Everything runs
+ * synchronously on the calling (main) thread.
+ */
+final class SwipeStressHarness {
+    private static final float CANCEL_PROBABILITY = 0.1f;
+    private static final int MAX_MOVES = 12;
+    private static final int MAX_EVENT_INTERVAL = 20;
+    private static final int MAX_SETTLE_TIME = 300;
+
+    /**
+     * Applies random changes to the data behind the wrapped adapter
+     */
+    interface Mutator {
+        /**
+         * Change the data behind the wrapped adapter and notify it. Called on the main thread in
+         * between touch events.
+         *
+         * @param random the seeded source of randomness of the run
+         */
+        void mutate(Random random);
+    }
+
+    /**
+     * The outcome of a run
+     */
+    static final class Report {
+        public final long seed;
+        public final int gestures;
+        public final int mutations;
+        public final int decided;
+        public final int delivered;
+        public final double gesturesPerSecond;
+        public final List<String> violations;
+
+        Report(long seed, int gestures, int mutations, int decided, int delivered,
+               double gesturesPerSecond, List<String> violations) {
+            this.seed = seed;
+            this.gestures = gestures;
+            this.mutations = mutations;
+            this.decided = decided;
+            this.delivered = delivered;
+            this.gesturesPerSecond = gesturesPerSecond;
+            this.violations = Collections.unmodifiableList(violations);
+        }
+
+        /**
+         * @return true if no invariant was violated
+         */
+        public boolean passed() {
+            return violations.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "seed=" + seed + " gestures=" + gestures + " mutations=" + mutations
+                    + " decided=" + decided + " delivered=" + delivered
+                    + " gestures/s=" + Math.round(gesturesPerSecond)
+                    + (passed() ? " OK" : " violations=" + violations);
+        }
+    }
+
+    private final SwipeActionAdapter mAdapter;
+    private final ManualAnimationDriver mDriver;
+    private final long mSeed;
+    private final Random mRandom;
+    private Mutator mMutator;
+    private float mMutationProbability = 0f;
+
+    private ListView mListView;
+    private SwipeActionTouchListener mTouchListener;
+    private final int[] mListViewCoords = new int[2];
+    private final List<String> mViolations = new ArrayList<>();
+    private final Map<Long, Integer> mOutstandingIds = new HashMap<>();
+    private int mDecided;
+    private int mDelivered;
+    private int mMutations;
+
+    /**
+     * @param adapter The adapter to stress. setListView must have been called.
+     * @param driver The driver that will step the animations, it is installed on the adapter
+     * @param seed The seed of the random gesture stream
+     */
+    SwipeStressHarness(@NonNull SwipeActionAdapter adapter, @NonNull ManualAnimationDriver driver, long seed) {
+        mAdapter = adapter;
+        mDriver = driver;
+        mSeed = seed;
+        mRandom = new Random(seed);
+    }
+
+    /**
+     * Interleave the gestures with random data changes
+     *
+     * @param mutator the source of data changes
+     * @param probability the chance that a data change happens in between two touch events
+     * @return A reference to the current instance so that commands can be chained
+     */
+    SwipeStressHarness setMutator(Mutator mutator, float probability) {
+        mMutator = mutator;
+        mMutationProbability = probability;
+        return this;
+    }
+
+    /**
+     * Perform a number of random gestures and check the invariants
+     *
+     * @param gestureCount the amount of gestures to perform
+     * @return the report of the run
+     */
+    Report run(int gestureCount) {
+        mListView = (ListView) mAdapter.getListView();
+        mTouchListener = mAdapter.getTouchListener();
+        if (mListView == null || mTouchListener == null) {
+            throw new IllegalStateException("Call setListView() on the adapter before running the harness");
+        }
+        mAdapter.setAnimationDriver(mDriver);
+
+        final SwipeActionAdapter.SwipeActionListener appListener = mAdapter.mSwipeActionListener;
+        mAdapter.setSwipeActionListener(new RecordingListener(appListener));
+
+        int gestures = 0;
+        long start = System.nanoTime();
+        try {
+            for (; gestures < gestureCount && mViolations.isEmpty(); gestures++) {
+                performGesture();
+                checkRefCount(gestures);
+            }
+            mDriver.runUntilIdle();
+            relayout();
+            checkIdle();
+        } catch (RuntimeException e) {
+            mViolations.add("gesture " + gestures + " threw " + e);
+        } finally {
+            mAdapter.setSwipeActionListener(appListener);
+        }
+        double seconds = Math.max(1e-9, (System.nanoTime() - start) / 1e9);
+
+        return new Report(mSeed, gestures, mMutations, mDecided, mDelivered, gestures / seconds,
+                new ArrayList<>(mViolations));
+    }
+
+    private void performGesture() {
+        int childCount = mListView.getChildCount();
+        if (childCount == 0) return;
+
+        View child = mListView.getChildAt(mRandom.nextInt(childCount));
+        mListView.getLocationOnScreen(mListViewCoords);
+        float x = mListViewCoords[0] + child.getLeft() + child.getWidth() / 2f;
+        float y = mListViewCoords[1] + child.getTop() + child.getHeight() / 2f;
+        float distance = (mRandom.nextFloat() * 2 - 1) * mListView.getWidth();
+        float drift = (mRandom.nextFloat() * 2 - 1) * child.getHeight() / 2f;
+        int moves = 1 + mRandom.nextInt(MAX_MOVES);
+
+        long downTime = mDriver.uptimeMillis();
+        dispatch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 1; i <= moves; i++) {
+            step(MAX_EVENT_INTERVAL);
+            float progress = (float) i / moves;
+            dispatch(downTime, MotionEvent.ACTION_MOVE, x + distance * progress, y + drift * progress);
+        }
+        step(MAX_EVENT_INTERVAL);
+        int action = mRandom.nextFloat() < CANCEL_PROBABILITY ? MotionEvent.ACTION_CANCEL : MotionEvent.ACTION_UP;
+        dispatch(downTime, action, x + distance, y + drift);
+
+        // Sometimes start the next gesture right away, sometimes let the animations finish
+        step(MAX_SETTLE_TIME);
+    }
+
+    private void step(int maxMillis) {
+        mDriver.advance(1 + mRandom.nextInt(maxMillis));
+        if (mMutator != null && mRandom.nextFloat() < mMutationProbability) {
+            mMutator.mutate(mRandom);
+            mMutations++;
+        }
+        relayout();
+    }
+
+    private void dispatch(long downTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, mDriver.uptimeMillis(), action, x, y, 0);
+        mTouchListener.onTouch(mListView, event);
+        event.recycle();
+    }
+
+    /**
+     * The collapse animations and data changes request a layout: perform it synchronously
+     */
+    private void relayout() {
+        int width = mListView.getWidth();
+        int height = mListView.getHeight();
+        mListView.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        mListView.layout(mListView.getLeft(), mListView.getTop(), mListView.getRight(), mListView.getBottom());
+    }
+
+    private void checkRefCount(int gesture) {
+        if (mTouchListener.getDismissAnimationRefCount() < 0) {
+            mViolations.add("gesture " + gesture + ": negative dismiss animation ref count");
+        }
+        if (mTouchListener.getUnbalancedDismissCount() != 0) {
+            mViolations.add("gesture " + gesture + ": a dismiss animation ended that was not counted");
+        }
+    }
+
+    private void checkIdle() {
+        if (mTouchListener.getDismissAnimationRefCount() != 0) {
+            mViolations.add("idle: dismiss animation ref count is " + mTouchListener.getDismissAnimationRefCount());
+        }
+        if (mTouchListener.getPendingDismissCount() != 0) {
+            mViolations.add("idle: " + mTouchListener.getPendingDismissCount() + " pending dismisses were never flushed");
+        }
+        if (mDecided != mDelivered) {
+            mViolations.add("idle: " + mDecided + " swipes were decided, but " + mDelivered + " were delivered");
+        }
+        for (Map.Entry<Long, Integer> entry : mOutstandingIds.entrySet()) {
+            if (entry.getValue() != 0) {
+                mViolations.add("idle: id " + entry.getKey() + " delivered " + (-entry.getValue()) + " times too many");
+            }
+        }
+        for (int i = 0; i < mListView.getChildCount(); i++) {
+            View child = mListView.getChildAt(i);
+            checkPresentation(child, i);
+            if (child instanceof SwipeViewGroup && ((SwipeViewGroup) child).getContentView() != null) {
+                checkPresentation(((SwipeViewGroup) child).getContentView(), i);
+            }
+        }
+    }
+
+    private void checkPresentation(View view, int index) {
+        if (view.getTranslationX() != 0 || view.getAlpha() != 1f) {
+            mViolations.add("idle: row " + index + " left with translationX=" + view.getTranslationX()
+                    + " alpha=" + view.getAlpha());
+        }
+    }
+
+    private class RecordingListener implements SwipeActionAdapter.SwipeActionListener {
+        private final SwipeActionAdapter.SwipeActionListener mDelegate;
+
+        RecordingListener(SwipeActionAdapter.SwipeActionListener delegate) {
+            mDelegate = delegate;
+        }
+
+        @Override
+        public boolean hasActions(int position, SwipeDirection direction) {
+            return mDelegate == null || mDelegate.hasActions(position, direction);
+        }
+
+        @Override
+        public boolean shouldDismiss(int position, SwipeDirection direction) {
+            mDecided++;
+            if (mAdapter.hasStableIds()) {
+                long id = mAdapter.getItemId(position);
+                Integer outstanding = mOutstandingIds.get(id);
+                mOutstandingIds.put(id, outstanding == null ? 1 : outstanding + 1);
+            }
+            return mDelegate != null ? mDelegate.shouldDismiss(position, direction) : mRandom.nextBoolean();
+        }
+
+        @Override
+        public void onSwipe(int[] position, SwipeDirection[] direction) {
+            if (mDelegate != null) mDelegate.onSwipe(position, direction);
+        }
+
+        @Override
+        public void onSwipe(int[] position, long[] id, SwipeDirection[] direction) {
+            mDelivered += position.length;
+            for (long itemId : id) {
+                if (itemId == AdapterView.INVALID_ROW_ID) continue;
+                Integer outstanding = mOutstandingIds.get(itemId);
+                mOutstandingIds.put(itemId, outstanding == null ? -1 : outstanding - 1);
+            }
+            if (mDelegate != null) mDelegate.onSwipe(position, id, direction);
+        }
+
+        @Override
+        public void onSwipeStarted(ListView listView, int position, SwipeDirection direction) {
+            if (mDelegate != null) mDelegate.onSwipeStarted(listView, position, direction);
+        }
+
+        @Override
+        public void onSwipeEnded(ListView listView, int position, SwipeDirection direction) {
+            if (mDelegate != null) mDelegate.onSwipeEnded(listView, position, direction);
+        }
+
+        @Override
+        public void onSwipeProgress(int position, SwipeDirection direction, float fraction, boolean pastNormal, boolean pastFar) {
+            if (mDelegate != null) mDelegate.onSwipeProgress(position, direction, fraction, pastNormal, pastFar);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.content.Context;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Random gestures, with and without data changes in between, checked by the {@link SwipeStressHarness}
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE)
+public class SwipeStressTest {
+    private static final int GESTURES = 300;
+    private static final long[] SEEDS = {1, 42, 1234, 98765};
+
+    @Test
+    public void randomGestures() {
+        for (long seed : SEEDS) {
+            assertPassed(createHarness(seed, false).run(GESTURES), false);
+        }
+    }
+
+    @Test
+    public void randomGesturesWithDataChanges() {
+        for (long seed : SEEDS) {
+            assertPassed(createHarness(seed, true).run(GESTURES), true);
+        }
+    }
+
+    private static void assertPassed(SwipeStressHarness.Report report, boolean mutate) {
+        String message = report.toString();
+        assertTrue(message, report.passed());
+        assertEquals(message, GESTURES, report.gestures);
+        // The run has to exercise something: swipes that were decided and actions that arrived
+        assertTrue(message, report.decided > 0);
+        assertTrue(message, report.delivered > 0);
+        assertEquals(message, mutate, report.mutations > 0);
+    }
+
+    private static SwipeStressHarness createHarness(long seed, boolean mutate) {
+        Context context = RuntimeEnvironment.application;
+        ListView listView = new ListView(context);
+        final List<String> items = TestLists.items(60);
+        final RowAdapter rows = new RowAdapter(context, items);
+        SwipeActionAdapter adapter = new SwipeActionAdapter(rows);
+        // The harness decides whether a swipe dismisses
+        adapter.setSwipeActionListener(null).setListView(listView);
+        listView.setAdapter(adapter);
+        TestLists.layout(listView);
+
+        SwipeStressHarness harness = new SwipeStressHarness(adapter, new ManualAnimationDriver(), seed);
+        if (mutate) {
+            harness.setMutator(new SwipeStressHarness.Mutator() {
+                private int mNext = items.size();
+
+                @Override
+                public void mutate(Random random) {
+                    if (random.nextBoolean() && items.size() > 20) {
+                        items.remove(random.nextInt(items.size()));
+                    } else {
+                        items.add(random.nextInt(items.size() + 1), "Row " + mNext++);
+                    }
+                    rows.notifyDataSetChanged();
+                }
+            }, 0.05f);
+        }
+        return harness;
+    }
+
+    /**
+     * Adapter whose item ids are the row numbers, so they survive inserts and removals
+     */
+    private static class RowAdapter extends ArrayAdapter<String> {
+        RowAdapter(Context context, List<String> items) {
+            super(context, android.R.layout.simple_list_item_1, items);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return Long.parseLong(getItem(position).substring("Row ".length()));
+        }
+
+        @Override
+        public boolean hasStableIds() {
+            return true;
+        }
+    }
+}
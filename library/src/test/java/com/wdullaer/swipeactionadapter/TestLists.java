@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.content.Context;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds laid out lists and sends touch gestures to them, for the Robolectric tests
+ */
+final class TestLists {
+    static final int WIDTH = 480;
+    static final int HEIGHT = 800;
+
+    private TestLists() {}
+
+    /**
+     * @return a mutable list of item names
+     */
+    static List<String> items(int count) {
+        List<String> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) items.add("Row " + i);
+        return items;
+    }
+
+    /**
+     * Wrap the items in an adapter, attach it to the ListView and lay it out
+     */
+    static SwipeActionAdapter createAdapter(Context context, ListView listView, List<String> items,
+                                            SwipeActionAdapter.SwipeActionListener listener) {
+        SwipeActionAdapter adapter = new SwipeActionAdapter(
+                new ArrayAdapter<>(context, android.R.layout.simple_list_item_1, items));
+        adapter.setSwipeActionListener(listener).setListView(listView);
+        listView.setAdapter(adapter);
+        layout(listView);
+        return adapter;
+    }
+
+    /**
+     * Measure and lay out the ListView synchronously, it is not attached to a window
+     */
+    static void layout(ListView listView) {
+        listView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        listView.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Swipe the row at the given index of the ListView children horizontally, with a touch event
+     * every frame of the driver
+     *
+     * @param distance the horizontal distance in pixels, negative to swipe left
+     * @param moves the amount of move events
+     */
+    static void swipe(SwipeActionAdapter adapter, ManualAnimationDriver driver, int childIndex,
+                      float distance, int moves) {
+        ListView listView = (ListView) adapter.getListView();
+        View child = listView.getChildAt(childIndex);
+        float x = WIDTH / 2f;
+        float y = child.getTop() + child.getHeight() / 2f;
+        long downTime = driver.uptimeMillis();
+        touch(adapter, downTime, driver.uptimeMillis(), MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 1; i <= moves; i++) {
+            driver.advance(16);
+            touch(adapter, downTime, driver.uptimeMillis(), MotionEvent.ACTION_MOVE, x + distance * i / moves, y);
+        }
+        driver.advance(16);
+        touch(adapter, downTime, driver.uptimeMillis(), MotionEvent.ACTION_UP, x + distance, y);
+    }
+
+    static void touch(SwipeActionAdapter adapter, long downTime, long eventTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, eventTime, action, x, y, 0);
+        adapter.getTouchListener().onTouch(adapter.getListView(), event);
+        event.recycle();
+    }
+
+    /**
+     * Swipe listener that dismisses everything and records what it is told
+     */
+    static class RecordingListener implements SwipeActionAdapter.SwipeActionListener {
+        final List<int[]> positions = new ArrayList<>();
+        final List<SwipeDirection[]> directions = new ArrayList<>();
+        boolean dismiss = true;
+        int decisions = 0;
+
+        int swipes() {
+            return positions.size();
+        }
+
+        @Override
+        public boolean hasActions(int position, SwipeDirection direction) {
+            return true;
+        }
+
+        @Override
+        public boolean shouldDismiss(int position, SwipeDirection direction) {
+            decisions++;
+            return dismiss;
+        }
+
+        @Override
+        public void onSwipe(int[] position, SwipeDirection[] direction) {
+            positions.add(position);
+            directions.add(direction);
+        }
+    }
+}
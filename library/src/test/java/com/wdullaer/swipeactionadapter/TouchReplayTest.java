@@ -0,0 +1,234 @@
+/*
+ * Copyright 2014 Wouter Dullaert
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.wdullaer.swipeactionadapter;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.widget.ListView;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays recorded touch traces, batched per frame like the framework delivers them, and measures
+ * how far swipe recognition and the row lag behind the finger
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27, manifest = Config.NONE, shadows = ShadowBatchedMotionEvent.class)
+public class TouchReplayTest {
+    // A 250 Hz digitizer on a 60 Hz display: four samples per MotionEvent
+    private static final int SAMPLE_INTERVAL = 4;
+    private static final int FRAME_INTERVAL = 16;
+    private static final int ROW = 2;
+
+    private ListView mListView;
+    private SwipeActionAdapter mAdapter;
+    private StartListener mListener;
+    private int mSlop;
+    private float mDownX;
+    private float mDownY;
+
+    @Before
+    public void setUp() {
+        mListView = new ListView(RuntimeEnvironment.application);
+        mListener = new StartListener();
+        mAdapter = TestLists.createAdapter(RuntimeEnvironment.application, mListView, TestLists.items(20), mListener);
+        mAdapter.setAnimationDriver(new ManualAnimationDriver());
+        mSlop = ViewConfiguration.get(RuntimeEnvironment.application).getScaledTouchSlop();
+        View row = mListView.getChildAt(ROW);
+        mDownX = TestLists.WIDTH / 4f;
+        mDownY = row.getTop() + row.getHeight() / 2f;
+    }
+
+    @Test
+    public void recognitionDelayIsMeasuredFromTheTrace() {
+        // 0.5 px/ms to the right
+        Trace trace = new Trace(20);
+        for (int i = 0; i < trace.size; i++) trace.set(i, mDownX + i * SAMPLE_INTERVAL * 0.5f, mDownY);
+        replay(trace, true);
+
+        // The first sample past the slop, and the MotionEvent that delivered it
+        int crossing = 0;
+        while (trace.x[crossing] - mDownX <= mSlop) crossing++;
+        long sampleTime = trace.time(crossing);
+        long deliveryTime = deliveryTime(sampleTime);
+
+        SwipeTouchStats stats = mAdapter.getTouchStats();
+        assertEquals(1, stats.swipes);
+        assertEquals(trace.size - 1, stats.samples);
+        assertEquals(deliveryTime - sampleTime, stats.meanRecognitionDelay, 0);
+        assertEquals(deliveryTime, mListener.startTime);
+    }
+
+    @Test
+    public void historyRecognizesASwipeAFrameEarlier() {
+        // The finger crosses the slop in the middle of the first frame, but jitters vertically
+        // right before the frame ends. Looking at the last sample only, it is not a swipe yet.
+        Trace trace = new Trace(9);
+        trace.set(0, mDownX, mDownY);
+        trace.set(1, mDownX + mSlop / 2f, mDownY);
+        trace.set(2, mDownX + mSlop + 2, mDownY);
+        trace.set(3, mDownX + mSlop + 4, mDownY);
+        trace.set(4, mDownX + mSlop + 5, mDownY + mSlop);
+        for (int i = 5; i < trace.size; i++) trace.set(i, mDownX + mSlop + 5 + 2 * (i - 4), mDownY);
+
+        replay(trace, true);
+        long withHistory = mListener.startTime;
+        setUp();
+        replay(trace, false);
+        long latestOnly = mListener.startTime;
+
+        assertEquals(FRAME_INTERVAL, withHistory);
+        assertEquals(2 * FRAME_INTERVAL, latestOnly);
+    }
+
+    @Test
+    public void predictionReducesTheLagBehindTheFinger() {
+        // 0.5 px/ms to the left, for half a second
+        Trace trace = new Trace(126);
+        for (int i = 0; i < trace.size; i++) trace.set(i, mDownX + 200 - i * SAMPLE_INTERVAL * 0.5f, mDownY);
+        mDownX += 200;
+
+        float lag = meanLag(trace);
+        assertTrue("lag " + lag, lag > 6);
+
+        setUp();
+        mDownX += 200;
+        mAdapter.setTouchPrediction(FRAME_INTERVAL);
+        float predictedLag = meanLag(trace);
+        SwipeTouchStats stats = mAdapter.getTouchStats();
+
+        assertTrue("lag " + lag + " with prediction " + predictedLag, Math.abs(predictedLag) < lag / 4);
+        assertTrue(stats.predictions > 0);
+        assertTrue("prediction error " + stats.meanPredictionError, stats.meanPredictionError < lag / 4);
+    }
+
+    /**
+     * Replay a trace one frame at a time, and measure how far the row is behind the finger at the
+     * time the frame is displayed: the frame after the MotionEvent was delivered
+     *
+     * @return the mean lag in pixels, in the direction of the swipe
+     */
+    private float meanLag(Trace trace) {
+        TestLists.touch(mAdapter, 0, 0, MotionEvent.ACTION_DOWN, trace.x[0], trace.y[0]);
+        float totalLag = 0;
+        int frames = 0;
+        int last = 0;
+        while (last + 1 < trace.size) {
+            int first = last + 1;
+            last = Math.min(trace.size - 1, first + FRAME_INTERVAL / SAMPLE_INTERVAL - 1);
+            deliver(trace, first, last, true);
+            // The finger moves at a constant speed: extrapolate where it is at display time
+            float speed = (trace.x[last] - trace.x[last - 1]) / SAMPLE_INTERVAL;
+            float fingerAtDisplay = trace.x[last] + speed * FRAME_INTERVAL;
+            if (mListener.startTime < 0) continue;
+            float target = fingerAtDisplay - mDownX + mSlop;
+            totalLag += translation() - target;
+            frames++;
+        }
+        return totalLag / frames;
+    }
+
+    private float translation() {
+        View row = mListView.getChildAt(ROW);
+        float translation = row.getTranslationX();
+        if (row instanceof SwipeViewGroup && ((SwipeViewGroup) row).getContentView() != null) {
+            translation += ((SwipeViewGroup) row).getContentView().getTranslationX();
+        }
+        return translation;
+    }
+
+    /**
+     * Send the trace as a down event followed by one move event per frame
+     *
+     * @param history true to batch all samples of a frame in its event, false to only send the last one
+     */
+    private void replay(Trace trace, boolean history) {
+        TestLists.touch(mAdapter, 0, 0, MotionEvent.ACTION_DOWN, trace.x[0], trace.y[0]);
+        int last = 0;
+        while (last + 1 < trace.size) {
+            int first = last + 1;
+            last = Math.min(trace.size - 1, first + FRAME_INTERVAL / SAMPLE_INTERVAL - 1);
+            deliver(trace, first, last, history);
+        }
+    }
+
+    private void deliver(Trace trace, int first, int last, boolean history) {
+        MotionEvent event = MotionEvent.obtain(0, trace.time(last), MotionEvent.ACTION_MOVE,
+                trace.x[last], trace.y[last], 0);
+        if (history) {
+            for (int i = first; i < last; i++) {
+                ShadowBatchedMotionEvent.addHistory(event, trace.time(i), trace.x[i], trace.y[i]);
+            }
+        }
+        mListener.eventTime = event.getEventTime();
+        mAdapter.getTouchListener().onTouch(mListView, event);
+        event.recycle();
+    }
+
+    /**
+     * @return the time of the MotionEvent that contains the sample taken at the given time
+     */
+    private static long deliveryTime(long sampleTime) {
+        return (sampleTime + FRAME_INTERVAL - 1) / FRAME_INTERVAL * FRAME_INTERVAL;
+    }
+
+    /**
+     * Finger positions sampled at a fixed interval, starting at time 0
+     */
+    private static final class Trace {
+        final int size;
+        final float[] x;
+        final float[] y;
+
+        Trace(int size) {
+            this.size = size;
+            x = new float[size];
+            y = new float[size];
+        }
+
+        void set(int index, float x, float y) {
+            this.x[index] = x;
+            this.y[index] = y;
+        }
+
+        long time(int index) {
+            return index * SAMPLE_INTERVAL;
+        }
+    }
+
+    /**
+     * Remembers the time of the event that first reported the swipe
+     */
+    private static class StartListener extends TestLists.RecordingListener {
+        long eventTime;
+        long startTime = -1;
+
+        @Override
+        public void onSwipeStarted(ListView listView, int position, SwipeDirection direction) {
+            if (startTime < 0) startTime = eventTime;
+        }
+    }
+}